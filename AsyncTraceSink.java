@@ -0,0 +1,189 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+   the scheduler thread only copies a few ints into a ring buffer slot; a
+   background thread formats the slots in batches and writes them through a
+   large buffer. When the ring is full the scheduler waits for the writer.
+   One scheduler thread per sink.
+*/
+public class AsyncTraceSink implements TraceSink {
+    private static final byte EXECUTION = 0;
+    private static final byte CONTEXT_SWITCH = 1;
+    private static final byte MESSAGE = 2;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int mask;
+    private final byte[] kind;
+    private final int[] start;
+    private final int[] end;
+    private final int[] id;
+    private final int[] arrival;
+    private final int[] burst;
+    private final String[] text;     // process name, or the message itself
+    private final String[] queue;
+
+    private final AtomicLong published = new AtomicLong();   // slots filled by the scheduler
+    private final AtomicLong consumed = new AtomicLong();    // slots handed to the writer
+    private volatile long written;                           // slots flushed to the stream
+
+    private final Writer out;
+    private final boolean closeOut;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public AsyncTraceSink(OutputStream out) {
+        this(out, 1 << 16, false);
+    }
+
+    // capacity is rounded up to a power of two; closeOut closes the stream on close()
+    public AsyncTraceSink(OutputStream out, int capacity, boolean closeOut) {
+        this.capacity = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.kind = new byte[this.capacity];
+        this.start = new int[this.capacity];
+        this.end = new int[this.capacity];
+        this.id = new int[this.capacity];
+        this.arrival = new int[this.capacity];
+        this.burst = new int[this.capacity];
+        this.text = new String[this.capacity];
+        this.queue = new String[this.capacity];
+        this.out = new BufferedWriter(new OutputStreamWriter(out), 1 << 16);
+        this.closeOut = closeOut;
+        this.writer = new Thread(this::drain, "trace-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void execution(int start, int end, ProcessTable table, int row, String queue) {
+        int slot = claim();
+        kind[slot] = EXECUTION;
+        this.start[slot] = start;
+        this.end[slot] = end;
+        id[slot] = table.getProcessId(row);
+        arrival[slot] = table.getArrivalTime(row);
+        burst[slot] = table.getBurstTime(row);
+        text[slot] = table.getName(row);
+        this.queue[slot] = queue;
+        publish();
+    }
+
+    @Override
+    public void contextSwitch(int start, int end) {
+        int slot = claim();
+        kind[slot] = CONTEXT_SWITCH;
+        this.start[slot] = start;
+        this.end[slot] = end;
+        publish();
+    }
+
+    @Override
+    public void message(String message) {
+        int slot = claim();
+        kind[slot] = MESSAGE;
+        text[slot] = message;
+        publish();
+    }
+
+    @Override
+    public void flush() {
+        long target = published.get();
+        LockSupport.unpark(writer);
+        while (written < target && writer.isAlive()) {
+            LockSupport.parkNanos(this, 50_000);
+        }
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        try {
+            flush();
+        } finally {
+            closed = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // restore interrupt
+            }
+        }
+    }
+
+    private int claim() {
+        if (closed)
+            throw new IllegalStateException("trace sink is closed");
+        long seq = published.get();
+        while (seq - consumed.get() >= capacity) {   // ring full, let the writer catch up
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+        return (int) (seq & mask);
+    }
+
+    private void publish() {
+        published.lazySet(published.get() + 1);
+    }
+
+    private void drain() {
+        StringBuilder batch = new StringBuilder(1 << 16);
+        while (true) {
+            long from = consumed.get();
+            long to = published.get();
+            if (from == to) {
+                if (closed)
+                    break;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            batch.setLength(0);
+            for (long seq = from; seq < to; seq++) {
+                int slot = (int) (seq & mask);
+                switch (kind[slot]) {
+                    case EXECUTION -> TraceFormat.appendExecution(batch, start[slot], end[slot],
+                            id[slot], text[slot], arrival[slot], burst[slot], queue[slot]);
+                    case CONTEXT_SWITCH -> TraceFormat.appendContextSwitch(batch, start[slot], end[slot]);
+                    default -> batch.append(text[slot]).append('\n');
+                }
+                text[slot] = null;
+                queue[slot] = null;
+            }
+            consumed.lazySet(to);
+            write(batch, to);
+        }
+        if (closeOut) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    private void write(CharSequence batch, long upTo) {
+        if (failure == null) {
+            try {
+                out.append(batch);
+                if (published.get() == upTo)   // caught up, push it out
+                    out.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (published.get() == upTo || failure != null)
+            written = upTo;
+    }
+}
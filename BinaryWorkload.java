@@ -0,0 +1,438 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+   columnar binary workload format, several times smaller than input.txt and
+   much faster to load
+
+      java BinaryWorkload input.txt input.bin    (text to binary)
+      java BinaryWorkload input.bin input.txt    (binary to text)
+
+   Header: "SWKB" magic, version, process count (8 bytes). Then blocks of up
+   to BLOCK_ROWS processes, each <rows varint> <payload length varint>
+   <payload>, and a block of 0 rows at the end. A payload holds its rows
+   column by column:
+
+      arrivals     zigzag varint of the difference to the previous arrival
+                   (the first against 0), one byte each for sorted traces
+      bursts       varint
+      types        2 bits each, four to a byte
+      priorities   one signed byte each
+      names        mode byte: NO_NAMES, DEFAULT_NAMES (every name is "P" + id)
+                   or TABLE_NAMES, which adds the block's new strings to the
+                   string table and then a varint reference per row
+
+   As in the text format, process ids are not stored: they are 1..count in
+   file order. WorkloadParser hands binary files to read() by their magic,
+   so everything that loads a workload takes either format.
+*/
+public class BinaryWorkload {
+    static final int MAGIC = 0x53574B42;   // "SWKB"
+    private static final int VERSION = 1;
+    private static final int BLOCK_ROWS = 1 << 16;
+
+    private static final int NO_NAMES = 0;
+    private static final int DEFAULT_NAMES = 1;
+    private static final int TABLE_NAMES = 2;
+
+    private static final ProcessType[] TYPES = ProcessType.values();
+
+    // true when file starts with the binary magic
+    public static boolean isBinary(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = in.readNBytes(4);
+            return head.length == 4 && ByteBuffer.wrap(head).getInt() == MAGIC;
+        }
+    }
+
+    public static void write(ProcessTable table, Path file) throws IOException {
+        try (Writer writer = new Writer(file)) {
+            for (int r = 0; r < table.size(); r++)
+                writer.accept(table.getName(r), table.getProcessId(r), table.getArrivalTime(r),
+                        table.getBurstTime(r), table.getPriority(r), table.getType(r));
+        }
+    }
+
+    public static ProcessTable load(Path file) throws IOException {
+        // a row takes at least two bytes, which bounds the capacity a corrupt count can ask for
+        long rows = Math.min(count(file), Files.size(file) / 2);
+        ProcessTable table = new ProcessTable((int) Math.min(rows, Integer.MAX_VALUE - 8));
+        read(file, table::add, true);
+        return table;
+    }
+
+    public static long count(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return readHeader(file, in);
+        }
+    }
+
+    // same contract as WorkloadParser.parse: returns how many processes went to consumer
+    public static int read(Path file, WorkloadConsumer consumer, boolean keepNames) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            long expected = readHeader(file, in);
+            Block block = new Block();
+            int id = 0;
+            while (true) {
+                int rows = readVarint(in);
+                if (rows == 0)
+                    break;
+                if (rows > BLOCK_ROWS)
+                    throw new IOException(file + ": corrupt block of " + rows + " rows");
+                block.load(in, readVarint(in));
+                id = block.decode(rows, id, consumer, keepNames);
+            }
+            if (id != expected)
+                throw new IOException(file + ": expected " + expected + " processes but found " + id);
+            return id;
+        }
+    }
+
+    private static long readHeader(Path file, DataInputStream in) throws IOException {
+        try {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a binary workload");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException(file + ": unsupported workload version " + version);
+            return in.readLong();
+        } catch (EOFException e) {
+            throw new IOException(file + ": truncated header", e);
+        }
+    }
+
+    /*
+       streams processes into a binary file, so a converter never holds the
+       whole trace; close() writes the last block and the count
+    */
+    public static final class Writer implements WorkloadConsumer, Closeable {
+        private final FileChannel channel;
+        private final int[] arrivals = new int[BLOCK_ROWS];
+        private final int[] bursts = new int[BLOCK_ROWS];
+        private final byte[] types = new byte[BLOCK_ROWS];
+        private final byte[] priorities = new byte[BLOCK_ROWS];
+        private final String[] names = new String[BLOCK_ROWS];
+        private final Map<String, Integer> strings = new HashMap<>();
+        private ByteBuffer out = ByteBuffer.allocate(1 << 20);
+        private ByteBuffer payload = ByteBuffer.allocate(1 << 20);
+        private int rows;
+        private long count;
+
+        public Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out.putInt(MAGIC).putInt(VERSION).putLong(0);   // count is patched in by close()
+        }
+
+        // the id is not stored; readers number processes 1..count in the order they were written
+        @Override
+        public void accept(String name, int processId, int arrivalTime, int burstTime, int priority, ProcessType type) {
+            if (burstTime < 0)
+                throw new IllegalArgumentException("process " + processId + ": negative burst " + burstTime);
+            if (priority < Byte.MIN_VALUE || priority > Byte.MAX_VALUE)
+                throw new IllegalArgumentException("process " + processId + ": priority " + priority + " does not fit in a byte");
+            arrivals[rows] = arrivalTime;
+            bursts[rows] = burstTime;
+            types[rows] = (byte) type.ordinal();
+            priorities[rows] = (byte) priority;
+            names[rows] = name;
+            rows++;
+            count++;
+            if (rows == BLOCK_ROWS)
+                flushBlock();
+        }
+
+        private void flushBlock() {
+            int mode = nameMode();
+            int bound = payloadBound(mode);
+            if (payload.capacity() < bound)
+                payload = ByteBuffer.allocate(bound);
+            payload.clear();
+            int previous = 0;
+            for (int r = 0; r < rows; r++) {
+                putVarint(payload, zigzag(arrivals[r] - previous));
+                previous = arrivals[r];
+            }
+            for (int r = 0; r < rows; r++)
+                putVarint(payload, bursts[r]);
+            for (int r = 0; r < rows; r += 4) {
+                int packed = 0;
+                for (int k = 0; k < 4 && r + k < rows; k++)
+                    packed |= types[r + k] << (2 * k);
+                payload.put((byte) packed);
+            }
+            payload.put(priorities, 0, rows);
+            payload.put((byte) mode);
+            if (mode == TABLE_NAMES)
+                putNames();
+
+            ensure(10 + payload.position());
+            putVarint(out, rows);
+            putVarint(out, payload.position());
+            out.put(payload.array(), 0, payload.position());
+            Arrays.fill(names, 0, rows, null);
+            rows = 0;
+            drain();
+        }
+
+        private int nameMode() {
+            boolean none = true;
+            boolean defaults = true;
+            long id = count - rows + 1;
+            for (int r = 0; r < rows && (none || defaults); r++, id++) {
+                String name = names[r];
+                if (name != null)
+                    none = false;
+                if (name == null || !isDefaultName(name, id))
+                    defaults = false;
+            }
+            return none ? NO_NAMES : defaults ? DEFAULT_NAMES : TABLE_NAMES;
+        }
+
+        private int payloadBound(int mode) {
+            long bound = rows * 11L + rows / 4 + 2;   // two varints, a type share and a priority per row, the mode
+            if (mode == TABLE_NAMES) {
+                bound += 5 + rows * 5L;
+                for (int r = 0; r < rows; r++)
+                    if (names[r] != null && !strings.containsKey(names[r]))
+                        bound += 5 + 3L * names[r].length();
+            }
+            if (bound > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("names too long for one block");
+            return (int) bound;
+        }
+
+        // new strings of this block first, then a reference per row (0 is no name)
+        private void putNames() {
+            String[] added = new String[rows];
+            int newCount = 0;
+            for (int r = 0; r < rows; r++) {
+                String name = names[r];
+                if (name != null && !strings.containsKey(name)) {
+                    strings.put(name, strings.size());
+                    added[newCount++] = name;
+                }
+            }
+            putVarint(payload, newCount);
+            for (int i = 0; i < newCount; i++) {
+                byte[] utf8 = added[i].getBytes(StandardCharsets.UTF_8);
+                putVarint(payload, utf8.length);
+                payload.put(utf8);
+            }
+            for (int r = 0; r < rows; r++)
+                putVarint(payload, names[r] == null ? 0 : strings.get(names[r]) + 1);
+        }
+
+        private void ensure(int bytes) {
+            if (out.remaining() >= bytes)
+                return;
+            drain();
+            if (out.capacity() < bytes)
+                out = ByteBuffer.allocate(bytes);
+        }
+
+        private void drain() {
+            out.flip();
+            try {
+                while (out.hasRemaining())
+                    channel.write(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (rows > 0)
+                    flushBlock();
+                ensure(1);
+                putVarint(out, 0);
+                drain();
+                channel.write(ByteBuffer.allocate(8).putLong(0, count), 8);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // one block's payload, decoded column by column
+    private static final class Block {
+        private byte[] payload = new byte[1 << 16];
+        private int length;
+        private int position;
+        private final int[] arrivals = new int[BLOCK_ROWS];
+        private final int[] bursts = new int[BLOCK_ROWS];
+        private final List<String> strings = new ArrayList<>();
+
+        void load(DataInputStream in, int length) throws IOException {
+            if (payload.length < length)
+                payload = new byte[Math.max(length, payload.length * 2)];
+            in.readFully(payload, 0, length);
+            this.length = length;
+            this.position = 0;
+        }
+
+        // returns the last id handed out
+        int decode(int rows, int id, WorkloadConsumer consumer, boolean keepNames) throws IOException {
+            int previous = 0;
+            for (int r = 0; r < rows; r++) {
+                int delta = varint();
+                previous += (delta >>> 1) ^ -(delta & 1);
+                arrivals[r] = previous;
+            }
+            for (int r = 0; r < rows; r++)
+                bursts[r] = varint();
+            int typesAt = take((rows + 3) / 4);
+            int prioritiesAt = take(rows);
+            int mode = payload[take(1)];
+            if (mode == TABLE_NAMES) {
+                int added = varint();
+                for (int i = 0; i < added; i++) {
+                    int len = varint();
+                    strings.add(new String(payload, take(len), len, StandardCharsets.UTF_8));
+                }
+            } else if (mode != NO_NAMES && mode != DEFAULT_NAMES) {
+                throw new IOException("corrupt block: name mode " + mode);
+            }
+            for (int r = 0; r < rows; r++) {
+                id++;
+                String name = null;
+                if (mode == TABLE_NAMES) {
+                    int ref = varint();
+                    if (ref > strings.size())
+                        throw new IOException("corrupt block: name " + ref + " of " + strings.size());
+                    if (keepNames && ref > 0)
+                        name = strings.get(ref - 1);
+                } else if (mode == DEFAULT_NAMES && keepNames) {
+                    name = "P" + id;
+                }
+                int type = (payload[typesAt + (r >> 2)] >>> (2 * (r & 3))) & 3;
+                consumer.accept(name, id, arrivals[r], bursts[r], payload[prioritiesAt + r], TYPES[type]);
+            }
+            if (position != length)
+                throw new IOException("corrupt block: " + (length - position) + " bytes left over");
+            return id;
+        }
+
+        private int take(int bytes) throws IOException {
+            if (bytes < 0 || position + bytes > length)
+                throw new IOException("corrupt block: column runs past the payload");
+            int at = position;
+            position += bytes;
+            return at;
+        }
+
+        private int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= length)
+                    throw new IOException("corrupt block: varint runs past the payload");
+                byte b = payload[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new IOException("corrupt block: varint longer than 5 bytes");
+        }
+    }
+
+    static boolean isDefaultName(String name, long id) {
+        if (name.length() < 2 || name.charAt(0) != 'P' || name.charAt(1) == '0')
+            return false;
+        long value = 0;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || i > 19)
+                return false;
+            value = value * 10 + (c - '0');
+        }
+        return value == id;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("workload ends inside a block header");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("corrupt block header");
+    }
+
+    // the text format, names made up as "P" + id where the binary has none
+    public static void writeText(Path binary, Path text) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(text, StandardCharsets.UTF_8)) {
+            out.write(Long.toString(count(binary)));
+            out.newLine();
+            read(binary, (name, id, arrival, burst, priority, type) -> {
+                try {
+                    out.write((name != null ? name : "P" + id) + " " + arrival + " " + burst + " " + priority
+                            + " " + type.name().toLowerCase());
+                    out.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: java BinaryWorkload <input.txt|input.bin> <output>");
+            System.exit(2);
+        }
+        Path in = Path.of(args[0]);
+        Path out = Path.of(args[1]);
+        long start = System.nanoTime();
+        long processes;
+        if (isBinary(in)) {
+            processes = count(in);
+            writeText(in, out);
+        } else {
+            try (Writer writer = new Writer(out)) {
+                processes = WorkloadParser.parse(in, writer);
+            }
+        }
+        System.out.println(String.format("%d processes, %d -> %d bytes (%.1fx) in %.0f ms",
+                processes, Files.size(in), Files.size(out), Files.size(in) / (double) Math.max(1, Files.size(out)),
+                (System.nanoTime() - start) / 1e6));
+    }
+}
@@ -0,0 +1,208 @@
+import java.util.LinkedList;
+
+/*
+   Completely Fair Scheduler, after Linux CFS
+
+      new CFSScheduler(table)             // target latency 24, minimum granularity 3
+      new CFSScheduler(table, 48, 4)
+
+   Every runnable process has a virtual runtime: the CPU time it received,
+   scaled down by its weight. The process with the smallest one runs next,
+   taken from an IndexedMinHeap, so a pick is O(log n) whatever the load.
+   Weights are the Linux nice-to-weight table, with the priority used as
+   the nice value (clamped to -20..19): priority 0 weighs 1024, and each
+   step costs about 25% of CPU time against its neighbour.
+
+   A slice is the process's weighted part of the scheduling period. The
+   period is the target latency, or minimum granularity times the number
+   of runnable processes once that is longer, so every one of them runs
+   within a period and none for less than the granularity. A new arrival
+   starts at the smallest virtual runtime in the queue, so it cannot claim
+   the CPU for the time it was not there.
+
+   The report adds fairness figures per process type (see ShareAccounting,
+   with the weights as the tickets). Every slice entitles
+   each runnable type to its weighted part of the slice (the weight of its
+   runnable processes over the total), and the fair-share ratio is the CPU
+   time a type got over the time it was entitled to. Perfectly weighted
+   fair scheduling gives every type a ratio of 1, no spread between the
+   ratios and a Jain index of 1 over them.
+*/
+public class CFSScheduler extends Scheduler {
+
+    private static final int NICE_0_WEIGHT = 1024;
+    private static final int[] NICE_TO_WEIGHT = {
+        /* -20 */ 88761, 71755, 56483, 46273, 36291,
+        /* -15 */ 29154, 23254, 18705, 14949, 11916,
+        /* -10 */  9548,  7620,  6100,  4904,  3906,
+        /*  -5 */  3121,  2501,  1991,  1586,  1277,
+        /*   0 */  1024,   820,   655,   526,   423,
+        /*   5 */   335,   272,   215,   172,   137,
+        /*  10 */   110,    87,    70,    56,    45,
+        /*  15 */    36,    29,    23,    18,    15,
+    };
+    private final ProcessTable table;
+    private final int targetLatency;
+    private final int minGranularity;
+    private final int contextSwitch = 2;
+
+    private int currentTime;
+    private int busyTime;
+    private int idleTime;
+    private int ctxSwitchTime;
+
+    private long[] vruntime;      // per row, in 1/NICE_0_WEIGHT time units
+    private long minVruntime;     // never decreases
+    private long runnableWeight;  // sum over the ready queue and the running process
+    private ShareAccounting share = new ShareAccounting(0);   // weights as tickets
+
+    public CFSScheduler(LinkedList<Process> processes) {
+        this(ProcessTable.of(processes));
+    }
+
+    public CFSScheduler(ProcessTable table) {
+        this(table, 24, 3);
+    }
+
+    public CFSScheduler(ProcessTable table, int targetLatency, int minGranularity) {
+        if (minGranularity < 1)
+            throw new IllegalArgumentException("minimum granularity must be at least 1: " + minGranularity);
+        if (targetLatency < minGranularity)
+            throw new IllegalArgumentException("target latency " + targetLatency + " is below the granularity " + minGranularity);
+        this.table = table;
+        this.targetLatency = targetLatency;
+        this.minGranularity = minGranularity;
+    }
+
+    // nice-style weight of a priority
+    public static int weight(int priority) {
+        return NICE_TO_WEIGHT[Math.max(-20, Math.min(19, priority)) + 20];
+    }
+
+    @Override
+    public void run() {
+        trace.message("╔════════════════════════════════════════════════╗");
+        trace.message("║      Completely Fair Scheduler (CFS) Trace     ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
+
+        int n = table.size();
+        int[] arrivals = table.rowsByArrival();
+        int next = 0;
+        vruntime = new long[n];
+        share = new ShareAccounting(n);
+
+        // smallest virtual runtime first; ties go to the earlier row
+        IndexedMinHeap ready = new IndexedMinHeap(n, (a, b) -> {
+            int c = Long.compare(vruntime[a], vruntime[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        int previous = -1;
+        int finished = 0;
+
+        while (finished < n) {
+            while (next < n && table.getArrivalTime(arrivals[next]) <= currentTime) {
+                int p = arrivals[next++];
+                vruntime[p] = minVruntime;
+                int w = weight(table.getPriority(p));
+                runnableWeight += w;
+                share.join(p, w, table.getType(p));
+                ready.add(p);
+            }
+
+            if (ready.isEmpty()) {
+                // jump straight to the next arrival
+                int until = table.getArrivalTime(arrivals[next]);
+                idleTime += until - currentTime;
+                currentTime = until;
+                continue;
+            }
+
+            int p = ready.poll();
+            if (previous != -1 && previous != p) {
+                trace.contextSwitch(currentTime, currentTime + contextSwitch);
+                ctxSwitchTime += contextSwitch;
+                currentTime += contextSwitch;
+            }
+            previous = p;
+
+            if (table.getStartedAt(p) == -1) {
+                table.setStartedAt(p, currentTime);
+                table.setResponseTime(p, currentTime - table.getArrivalTime(p));
+            }
+
+            int weight = weight(table.getPriority(p));
+            int runFor = Math.min(slice(ready.size() + 1, weight), table.getRemainingTime(p));
+            int start = currentTime;
+            table.setRemainingTime(p, table.getRemainingTime(p) - runFor);
+            busyTime += runFor;
+            currentTime += runFor;
+            share.ran(table.getType(p), runFor);
+            vruntime[p] += (long) runFor * NICE_0_WEIGHT * NICE_0_WEIGHT / weight;
+            trace.execution(start, currentTime, table, p, null);
+
+            if (table.end(p)) {
+                table.setFinishedAt(p, currentTime);
+                table.calculateAllTimes(p);
+                recordFinished(table, p);
+                runnableWeight -= weight;
+                share.leave(p, weight, table.getType(p), table.getBurstTime(p));
+                finished++;
+            } else {
+                ready.add(p);
+            }
+
+            if (!ready.isEmpty())
+                minVruntime = Math.max(minVruntime, vruntime[ready.peek()]);
+        }
+
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
+    }
+
+    // weighted part of the period for nrRunning processes, at least one time unit
+    private int slice(int nrRunning, int weight) {
+        long period = nrRunning <= targetLatency / minGranularity
+                ? targetLatency : (long) nrRunning * minGranularity;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, period * weight / runnableWeight));
+    }
+
+    // CPU time given to processes of one type
+    public long getCpuTime(ProcessType type) {
+        return share.getCpuTime(type);
+    }
+
+    // CPU time the type got over what its weights entitled it to; 0 when it never ran
+    public double getFairShareRatio(ProcessType type) {
+        return share.getShareRatio(type);
+    }
+
+    // (sum x)^2 / (n * sum x^2) over the fair-share ratios of the types that ran; 1 is perfectly fair
+    public double getJainIndex() {
+        double sum = 0;
+        double squares = 0;
+        int n = 0;
+        for (ProcessType type : ProcessType.values()) {
+            double x = getFairShareRatio(type);
+            if (x == 0)
+                continue;
+            sum += x;
+            squares += x * x;
+            n++;
+        }
+        return n == 0 ? 1.0 : sum * sum / (n * squares);
+    }
+
+    private void printStats() {
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║      Completely Fair Scheduler (CFS) Stats     ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
+
+        share.print(report, busyTime, "                    Fairness                    ", "Fair share");
+        report.println(String.format("%-25s = %.4f", "Jain index (weighted)", getJainIndex()));
+        report.println(String.format("%-25s = %d / %d", "Target latency / min gran", targetLatency, minGranularity));
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+   periodic snapshots of a running scheduler, so a long replay can resume
+   after the JVM dies instead of starting from zero
+
+   At a decision point the scheduler asks isDue(), which is cheap, and if it
+   is due copies what changed since its last snapshot (a TableSnapshot
+   delta, its ready queues and a few ints) and hands the copy to save(). A background thread serializes it to a temp
+   file, syncs it and renames it over the checkpoint, so the file on disk is
+   always a whole snapshot. A snapshot is skipped while the previous one is
+   still being written. close() waits for the last write.
+
+   File: "SCHK" magic, format version, scheduler kind, then whatever the
+   scheduler wrote. MQScheduler.resume and MLFQScheduler.resume read it back,
+   into the SimulationContext given to them when the run is hosted in one.
+*/
+public class Checkpoint implements AutoCloseable {
+
+    private static final int MAGIC = 0x5343484B;   // "SCHK"
+    private static final int VERSION = 4;   // 2: MLFQ levels left the process table, 3: deadline and period columns, 4: MQ future arrivals rebuilt on resume
+    private static final int CLOCK_CHECK_EVERY = 256;   // decision points between reads of the wall clock
+
+    // the scheduler state to write; called on the writer thread, so it must only touch copies
+    public interface State {
+        void writeTo(DataOutput out) throws IOException;
+    }
+
+    private final Path file;
+    private final long intervalNanos;
+    private final ExecutorService writer;
+    private Future<?> pending;
+    private long lastSaved;
+    private int sinceClockCheck;
+    private int saved;
+
+    public Checkpoint(Path file, long interval, TimeUnit unit) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        this.file = file;
+        this.intervalNanos = unit.toNanos(interval);
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.lastSaved = System.nanoTime();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // number of snapshots handed to the writer so far
+    public int getSaved() {
+        return saved;
+    }
+
+    public boolean isDue() {
+        if (++sinceClockCheck < CLOCK_CHECK_EVERY)
+            return false;
+        sinceClockCheck = 0;
+        if (System.nanoTime() - lastSaved < intervalNanos)
+            return false;
+        if (pending != null) {
+            if (!pending.isDone())
+                return false;
+            rethrow(pending);
+        }
+        return true;
+    }
+
+    public void save(String kind, State state) {
+        lastSaved = System.nanoTime();
+        saved++;
+        pending = writer.submit(() -> {
+            write(kind, state);
+            return null;
+        });
+    }
+
+    private void write(String kind, State state) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(kind);
+            state.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // waits for the last snapshot to reach the disk
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (pending != null)
+            rethrow(pending);
+    }
+
+    private static void rethrow(Future<?> done) {
+        try {
+            done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw new UncheckedIOException("checkpoint write failed", (IOException) cause);
+            throw new IllegalStateException("checkpoint write failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // opens a checkpoint and checks it was written by the given kind of scheduler
+    public static DataInputStream open(Path file, String kind) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a scheduler checkpoint");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException(file + ": unsupported checkpoint version " + version);
+            String found = in.readUTF();
+            if (!found.equals(kind))
+                throw new IOException(file + " is a " + found + " checkpoint, not " + kind);
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static final int CHUNK_INTS = 1 << 14;
+
+    static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        writeInts(out, values, values.length);
+    }
+
+    // the first n values, big-endian, through a chunk buffer rather than one writeInt each
+    static void writeInts(DataOutput out, int[] values, int n) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(4 * Math.min(n, CHUNK_INTS));
+        for (int from = 0; from < n; from += CHUNK_INTS) {
+            int len = Math.min(CHUNK_INTS, n - from);
+            chunk.clear();
+            chunk.asIntBuffer().put(values, from, len);
+            out.write(chunk.array(), 0, 4 * len);
+        }
+    }
+
+    static int[] readInts(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            throw new IOException("corrupt checkpoint: array of " + n);
+        int[] values = new int[n];
+        readInts(in, values, n);
+        return values;
+    }
+
+    static void readInts(DataInput in, int[] values, int n) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(4 * Math.min(n, CHUNK_INTS));
+        for (int from = 0; from < n; from += CHUNK_INTS) {
+            int len = Math.min(CHUNK_INTS, n - from);
+            in.readFully(chunk.array(), 0, 4 * len);
+            chunk.clear();
+            chunk.asIntBuffer().get(values, from, len);
+        }
+    }
+}
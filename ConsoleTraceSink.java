@@ -0,0 +1,62 @@
+import java.io.PrintStream;
+
+/*
+   writes every event straight to the console. With a pause it paces the
+   simulation so it can be watched live; that is opt-in via paced().
+*/
+public class ConsoleTraceSink implements TraceSink {
+    private final PrintStream out;
+    private final long pauseMillis;
+    private final StringBuilder line = new StringBuilder(128);
+
+    public ConsoleTraceSink() {
+        this(System.out, 0);
+    }
+
+    public ConsoleTraceSink(PrintStream out, long pauseMillis) {
+        this.out = out;
+        this.pauseMillis = pauseMillis;
+    }
+
+    // the classic interactive trace: 0.5 seconds after every slice and switch
+    public static ConsoleTraceSink paced() {
+        return new ConsoleTraceSink(System.out, 500);
+    }
+
+    @Override
+    public void execution(int start, int end, ProcessTable table, int row, String queue) {
+        line.setLength(0);
+        TraceFormat.appendExecution(line, start, end, table.getProcessId(row), table.getName(row),
+                table.getArrivalTime(row), table.getBurstTime(row), queue);
+        out.print(line);
+        pause();
+    }
+
+    @Override
+    public void contextSwitch(int start, int end) {
+        line.setLength(0);
+        TraceFormat.appendContextSwitch(line, start, end);
+        out.print(line);
+        pause();
+    }
+
+    @Override
+    public void message(String text) {
+        out.println(text);
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0)
+            return;
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // restore interrupt
+        }
+    }
+}
@@ -0,0 +1,432 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+   earliest deadline first and rate monotonic scheduling of real-time jobs
+
+      table.setPeriod(row, 20);       // a job every 20 units from the arrival on
+      table.setDeadline(row, 15);     // each due 15 units after its release
+      new EDFScheduler(table, EDFScheduler.Policy.EARLIEST_DEADLINE).run();
+
+   Every row is a task. A row with a period releases a job of its burst
+   every period from its arrival until the horizon; a row without one is a
+   single job at its arrival. A job is due deadline units after its
+   release, or a period after it when only the period is set; a job with
+   neither has no deadline. Both policies are preemptive:
+     EARLIEST_DEADLINE   the ready job due first runs; jobs without a
+                         deadline only get the CPU when nothing is due
+     RATE_MONOTONIC      fixed priorities, the shorter the period the
+                         higher; single jobs rank below every periodic task
+   Releases come from a heap of the tasks' next release times and ready
+   jobs sit in an IndexedMinHeap, so a release or a pick is O(log n) and a
+   job's slot is reused once it finishes.
+
+   The report covers jobs, not tasks: percentiles are per job, and a task's
+   row shows its worst job (turnaround is the longest release-to-finish
+   time). On top come the deadline-miss ratio, lateness (finish minus
+   deadline, negative for early jobs) with tardiness percentiles (lateness
+   of the late jobs, 0 for the rest) and a schedulability test of the periodic tasks, assuming they all
+   release together, the worst case, and charging every job two context
+   switches (one in, one for the job it preempts) on top of its burst:
+     EARLIEST_DEADLINE   utilization <= 1 when deadlines are at least the
+                         period, else density <= 1 as a sufficient test
+     RATE_MONOTONIC      Liu-Layland and hyperbolic bounds, then exact
+                         response-time analysis for up to RTA_LIMIT tasks
+*/
+public class EDFScheduler extends Scheduler {
+
+    public enum Policy { EARLIEST_DEADLINE, RATE_MONOTONIC }
+
+    private static final int NO_DEADLINE = Integer.MAX_VALUE;
+    private static final int HORIZON_PERIODS = 1000;   // default horizon cap, in longest periods
+    private static final int RTA_LIMIT = 2000;          // response-time analysis is O(tasks^2) per iteration
+
+    private final ProcessTable table;
+    private final Policy policy;
+    private final int horizon;
+    private int contextSwitch = 2;
+
+    private int currentTime;
+    private int busyTime;
+    private int idleTime;
+    private int ctxSwitchTime;
+
+    // jobs by slot; freed slots are stacked in free
+    private int[] jobTask = new int[16];
+    private int[] jobRelease = new int[16];
+    private int[] jobDeadline = new int[16];
+    private int[] jobRemaining = new int[16];
+    private int[] jobStarted = new int[16];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int slots;
+
+    private int[] worstTurnaround;   // per task
+    private long released;
+    private long withDeadline;
+    private long missed;
+    private final LatencyHistogram lateness = new LatencyHistogram();    // exact mean, min and max only
+    private final LatencyHistogram tardiness = new LatencyHistogram();
+
+    public EDFScheduler(LinkedList<Process> processes, Policy policy) {
+        this(ProcessTable.of(processes), policy);
+    }
+
+    // horizon: the hyperperiod after the last arrival, at most HORIZON_PERIODS of the longest period
+    public EDFScheduler(ProcessTable table, Policy policy) {
+        this(table, policy, defaultHorizon(table));
+    }
+
+    // periodic tasks release no job at or after horizon, except the first
+    public EDFScheduler(ProcessTable table, Policy policy, int horizon) {
+        this.table = table;
+        this.policy = policy;
+        this.horizon = horizon;
+    }
+
+    // time units charged per switch, 2 like the other schedulers; 0 for the textbook analyses
+    public void setContextSwitchCost(int contextSwitch) {
+        if (contextSwitch < 0)
+            throw new IllegalArgumentException("negative context switch cost " + contextSwitch);
+        this.contextSwitch = contextSwitch;
+    }
+
+    private static int defaultHorizon(ProcessTable table) {
+        long lastArrival = 0;
+        long hyperperiod = 1;
+        long longest = 0;
+        for (int r = 0; r < table.size(); r++) {
+            lastArrival = Math.max(lastArrival, table.getArrivalTime(r));
+            int period = table.getPeriod(r);
+            if (period == 0)
+                continue;
+            longest = Math.max(longest, period);
+            if (hyperperiod <= Integer.MAX_VALUE)   // past that only the cap matters, and the product stays in a long
+                hyperperiod = hyperperiod / gcd(hyperperiod, period) * period;
+        }
+        long span = Math.min(hyperperiod, longest * HORIZON_PERIODS);
+        return (int) Math.min(Integer.MAX_VALUE, lastArrival + span);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    @Override
+    public void run() {
+        trace.message("╔════════════════════════════════════════════════╗");
+        if (policy == Policy.EARLIEST_DEADLINE)
+            trace.message("║     Earliest Deadline First (EDF) Trace        ║");
+        else
+            trace.message("║       Rate Monotonic (RM) Scheduling Trace     ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
+
+        int n = table.size();
+        worstTurnaround = new int[n];
+        int[] nextRelease = new int[n];
+        IndexedMinHeap releases = new IndexedMinHeap(n, (a, b) -> {
+            int c = Integer.compare(nextRelease[a], nextRelease[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int r = 0; r < n; r++) {
+            nextRelease[r] = table.getArrivalTime(r);
+            releases.add(r);
+        }
+        IndexedMinHeap ready = new IndexedMinHeap(jobTask.length,
+                policy == Policy.EARLIEST_DEADLINE ? this::byDeadline : this::byRate);
+
+        int previousTask = -1;
+        int previousRelease = -1;
+
+        while (true) {
+            while (!releases.isEmpty() && nextRelease[releases.peek()] <= currentTime) {
+                int task = releases.peek();
+                int job = release(task, nextRelease[task]);
+                ready.ensureCapacity(slots);
+                ready.add(job);
+                long following = (long) nextRelease[task] + table.getPeriod(task);
+                if (table.getPeriod(task) > 0 && following < horizon) {
+                    nextRelease[task] = (int) following;
+                    releases.update(task);
+                } else {
+                    releases.poll();
+                }
+            }
+
+            if (ready.isEmpty()) {
+                if (releases.isEmpty())
+                    break;
+                // jump straight to the next release
+                int until = nextRelease[releases.peek()];
+                idleTime += until - currentTime;
+                currentTime = until;
+                continue;
+            }
+
+            int job = ready.peek();
+            int task = jobTask[job];
+            if (previousTask != -1 && (previousTask != task || previousRelease != jobRelease[job]) && contextSwitch > 0) {
+                trace.contextSwitch(currentTime, currentTime + contextSwitch);
+                ctxSwitchTime += contextSwitch;
+                currentTime += contextSwitch;
+            }
+            previousTask = task;
+            previousRelease = jobRelease[job];
+
+            if (jobStarted[job] == -1) {
+                jobStarted[job] = currentTime;
+                if (table.getStartedAt(task) == -1) {
+                    table.setStartedAt(task, currentTime);
+                    table.setResponseTime(task, currentTime - jobRelease[job]);
+                }
+            }
+
+            // run until the job is done or the next release may preempt it
+            int runFor = jobRemaining[job];
+            if (!releases.isEmpty())
+                runFor = Math.min(runFor, nextRelease[releases.peek()] - currentTime);
+            runFor = Math.max(runFor, 1);
+
+            int start = currentTime;
+            jobRemaining[job] -= runFor;
+            busyTime += runFor;
+            currentTime += runFor;
+            trace.execution(start, currentTime, table, task, null);
+
+            if (jobRemaining[job] <= 0) {
+                ready.poll();
+                finish(job);
+            }
+        }
+
+        // a task's row shows its worst job
+        for (int r = 0; r < n; r++) {
+            if (table.getFinishedAt(r) == -1)
+                continue;
+            table.setRemainingTime(r, 0);
+            table.setTurnaroundTime(r, worstTurnaround[r]);
+            table.setWaitingTime(r, worstTurnaround[r] - table.getBurstTime(r));
+        }
+
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
+    }
+
+    private int byDeadline(int a, int b) {
+        int c = Integer.compare(jobDeadline[a], jobDeadline[b]);
+        if (c == 0) c = Integer.compare(jobRelease[a], jobRelease[b]);
+        return c != 0 ? c : Integer.compare(jobTask[a], jobTask[b]);
+    }
+
+    private int byRate(int a, int b) {
+        int c = Integer.compare(rank(jobTask[a]), rank(jobTask[b]));
+        if (c == 0) c = Integer.compare(jobDeadline[a], jobDeadline[b]);
+        if (c == 0) c = Integer.compare(jobRelease[a], jobRelease[b]);
+        return c != 0 ? c : Integer.compare(jobTask[a], jobTask[b]);
+    }
+
+    // rate monotonic priority, lower first
+    private int rank(int task) {
+        int period = table.getPeriod(task);
+        return period > 0 ? period : Integer.MAX_VALUE;
+    }
+
+    // relative deadline of a task's jobs, NO_DEADLINE for none
+    private static int relativeDeadline(ProcessTable table, int task) {
+        if (table.getDeadline(task) > 0)
+            return table.getDeadline(task);
+        return table.getPeriod(task) > 0 ? table.getPeriod(task) : NO_DEADLINE;
+    }
+
+    private int release(int task, int at) {
+        int job;
+        if (freeCount > 0) {
+            job = free[--freeCount];
+        } else {
+            if (slots == jobTask.length)
+                grow();
+            job = slots++;
+        }
+        int relative = relativeDeadline(table, task);
+        jobTask[job] = task;
+        jobRelease[job] = at;
+        jobDeadline[job] = relative == NO_DEADLINE ? NO_DEADLINE : (int) Math.min(NO_DEADLINE - 1L, (long) at + relative);
+        jobRemaining[job] = table.getBurstTime(task);
+        jobStarted[job] = -1;
+        released++;
+        return job;
+    }
+
+    private void grow() {
+        int grown = jobTask.length * 2;
+        jobTask = Arrays.copyOf(jobTask, grown);
+        jobRelease = Arrays.copyOf(jobRelease, grown);
+        jobDeadline = Arrays.copyOf(jobDeadline, grown);
+        jobRemaining = Arrays.copyOf(jobRemaining, grown);
+        jobStarted = Arrays.copyOf(jobStarted, grown);
+        free = Arrays.copyOf(free, grown);
+    }
+
+    private void finish(int job) {
+        int task = jobTask[job];
+        int turnaround = currentTime - jobRelease[job];
+        stats.record(table.getType(task), turnaround - table.getBurstTime(task), turnaround,
+                jobStarted[job] - jobRelease[job]);
+        worstTurnaround[task] = Math.max(worstTurnaround[task], turnaround);
+        table.setFinishedAt(task, currentTime);
+        if (jobDeadline[job] != NO_DEADLINE) {
+            withDeadline++;
+            lateness.record(currentTime - jobDeadline[job]);
+            tardiness.record(Math.max(0, currentTime - jobDeadline[job]));
+            if (currentTime > jobDeadline[job])
+                missed++;
+        }
+        free[freeCount++] = job;
+    }
+
+    public long getReleasedJobs() {
+        return released;
+    }
+
+    public long getMissedDeadlines() {
+        return missed;
+    }
+
+    // missed over jobs that had a deadline
+    public double getMissRatio() {
+        return withDeadline == 0 ? 0.0 : missed / (double) withDeadline;
+    }
+
+    // finish minus deadline of every job that had one
+    public LatencyHistogram getLateness() {
+        return lateness;
+    }
+
+    // lateness floored at 0, for percentiles
+    public LatencyHistogram getTardiness() {
+        return tardiness;
+    }
+
+    // sum of (burst + switches) / period over the periodic tasks
+    public double getUtilization() {
+        double u = 0;
+        for (int r = 0; r < table.size(); r++)
+            if (table.getPeriod(r) > 0)
+                u += cost(r) / (double) table.getPeriod(r);
+        return u;
+    }
+
+    // execution time a job of task can take, switches included
+    private long cost(int task) {
+        return table.getBurstTime(task) + 2L * contextSwitch;
+    }
+
+    // verdict of the schedulability test for this policy on the periodic tasks
+    public String schedulability() {
+        int m = 0;
+        boolean implicit = true;     // every deadline at least the period
+        double density = 0;
+        double hyperbolic = 1;
+        for (int r = 0; r < table.size(); r++) {
+            int period = table.getPeriod(r);
+            if (period == 0)
+                continue;
+            m++;
+            int deadline = relativeDeadline(table, r);
+            implicit &= deadline >= period;
+            double u = cost(r) / (double) period;
+            density += cost(r) / (double) Math.min(deadline, period);
+            hyperbolic *= u + 1;
+        }
+        if (m == 0)
+            return "no periodic tasks to test";
+        double u = getUtilization();
+        if (u > 1)
+            return String.format("not schedulable: utilization %.3f > 1", u);
+
+        if (policy == Policy.EARLIEST_DEADLINE) {
+            if (implicit)
+                return String.format("schedulable: utilization %.3f <= 1", u);
+            if (density <= 1)
+                return String.format("schedulable: density %.3f <= 1", density);
+            return String.format("unknown: density %.3f > 1 and the density test is only sufficient", density);
+        }
+
+        double liuLayland = m * (Math.pow(2, 1.0 / m) - 1);
+        if (implicit && u <= liuLayland)
+            return String.format("schedulable: utilization %.3f <= Liu-Layland bound %.3f", u, liuLayland);
+        if (implicit && hyperbolic <= 2)
+            return String.format("schedulable: hyperbolic bound %.3f <= 2", hyperbolic);
+        if (m > RTA_LIMIT)
+            return String.format("unknown: utilization %.3f above the bounds and %d tasks are too many for response-time analysis", u, m);
+        return responseTimeAnalysis(m);
+    }
+
+    // worst-case response time of each task under all higher-priority ones; exact for synchronous releases
+    private String responseTimeAnalysis(int m) {
+        int[] tasks = new int[m];
+        int k = 0;
+        for (int r = 0; r < table.size(); r++)
+            if (table.getPeriod(r) > 0)
+                tasks[k++] = r;
+        int[] byPriority = Arrays.stream(tasks).boxed()
+                .sorted((a, b) -> {
+                    int c = Integer.compare(table.getPeriod(a), table.getPeriod(b));
+                    return c != 0 ? c : Integer.compare(a, b);
+                })
+                .mapToInt(Integer::intValue).toArray();
+        for (int i = 0; i < m; i++) {
+            int task = byPriority[i];
+            long deadline = relativeDeadline(table, task);
+            long response = cost(task);
+            for (int j = 0; j < i; j++)
+                response += cost(byPriority[j]);
+            while (true) {
+                long next = cost(task);
+                for (int j = 0; j < i; j++) {
+                    int higher = byPriority[j];
+                    next += (response + table.getPeriod(higher) - 1) / table.getPeriod(higher) * cost(higher);
+                }
+                if (next > deadline)
+                    return String.format("not schedulable: process %d can take %d > deadline %d",
+                            table.getProcessId(task), next, deadline);
+                if (next == response)
+                    break;
+                response = next;
+            }
+        }
+        return "schedulable: response-time analysis, every task meets its deadline";
+    }
+
+    private void printStats() {
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        if (policy == Policy.EARLIEST_DEADLINE)
+            report.println("║      Earliest Deadline First (EDF) Stats       ║");
+        else
+            report.println("║        Rate Monotonic (RM) Scheduling Stats    ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
+
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║                   Deadlines                    ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        report.println(String.format("%-25s = %d", "Jobs released", released));
+        report.println(String.format("%-25s = %d", "Jobs with a deadline", withDeadline));
+        report.println(String.format("%-25s = %d", "Deadlines missed", missed));
+        report.println(String.format("%-25s = %.2f%%", "Miss ratio", getMissRatio() * 100.0));
+        if (lateness.getCount() > 0) {
+            report.println(String.format("%-25s = %.2f / %d", "Mean / max lateness", lateness.getMean(), lateness.getMax()));
+            report.println(String.format("%-25s = %d / %d / %d / %d", "Tardiness p50/p95/p99/max",
+                    tardiness.getPercentile(50), tardiness.getPercentile(95), tardiness.getPercentile(99), tardiness.getMax()));
+        }
+        report.println(String.format("%-25s = %.3f", "Periodic utilization", getUtilization()));
+        report.println(String.format("%-25s = %s", "Schedulability", schedulability()));
+    }
+}
@@ -1,19 +1,19 @@
-import java.util.Comparator;
 import java.util.LinkedList;
-import java.util.List;
 
 public class FCFS extends  Scheduler {
-    LinkedList<Process> processes;
+    private ProcessTable table;
     private int currentTime = 0;
     private final int contextSwitch = 2;
-    private List<Process> finishedProcesses;
     private int busyTime;
     private int idleTime;
     private int ctxSwitchTime;
 
     public FCFS(LinkedList<Process> processes) {
-        this.processes = processes;
-        this.finishedProcesses = new LinkedList<>(); 
+        this(ProcessTable.of(processes));
+    }
+
+    public FCFS(ProcessTable table) {
+        this.table = table;
         this.busyTime = 0;
         this.idleTime = 0;
         this.ctxSwitchTime = 0;
@@ -21,65 +21,49 @@ public class FCFS extends  Scheduler {
 
     @Override
     public void run() {
-        System.out.println("╔═════════════════════════════════════════════════════╗");
-        System.out.println("║       First come First Serve Scheduler Trace        ║");
-        System.out.println("╚═════════════════════════════════════════════════════╝\n");
-        processes.sort(Comparator.comparingInt(Process::getArrivalTime));
+        trace.message("╔═════════════════════════════════════════════════════╗");
+        trace.message("║       First come First Serve Scheduler Trace        ║");
+        trace.message("╚═════════════════════════════════════════════════════╝\n");
+        int[] order = table.rowsByArrival();
 
-        for (Process p : processes) {
+        for (int i = 0; i < order.length; i++) {
+            int p = order[i];
 
-            if (currentTime < p.getArrivalTime()) {
-                idleTime += p.getArrivalTime() - currentTime;
-                currentTime = p.getArrivalTime();
+            if (currentTime < table.getArrivalTime(p)) {
+                idleTime += table.getArrivalTime(p) - currentTime;
+                currentTime = table.getArrivalTime(p);
             }
 
-            p.setStartedAt(currentTime);
-            p.setResponseTime(p.getStartedAt() - p.getArrivalTime()); 
-            currentTime += p.getBurstTime();
-            p.setFinishedAt(currentTime);
-            p.calculateAllTimes();
-            busyTime += p.getBurstTime();
+            table.setStartedAt(p, currentTime);
+            table.setResponseTime(p, table.getStartedAt(p) - table.getArrivalTime(p));
+            currentTime += table.getBurstTime(p);
+            table.setRemainingTime(p, 0);
+            table.setFinishedAt(p, currentTime);
+            table.calculateAllTimes(p);
+            recordFinished(table, p);
+            busyTime += table.getBurstTime(p);
 
-            if (!p.equals(processes.getLast())) {
+            printProcess(p);
+
+            if (i != order.length - 1) {
                 ctxSwitchTime += contextSwitch;
-                currentTime += contextSwitch;
                 printContextSwitch();
+                currentTime += contextSwitch;
             }
-
-            finishedProcesses.add(p);
-            printProcess(p);
             // printProcessStatuses();
         }
 
-        printStats();
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
     }
 
-    private void printProcess(Process currentProcess) {
-        String batch = String.format(
-            "%-15s %s",
-            String.format("time %d-%d:", currentProcess.getStartedAt(), currentProcess.getFinishedAt()),   
-            currentProcess.trace()        
-        );
-        System.out.println(batch + "\n===");
-        try {
-            Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt
-        }
+    private void printProcess(int row) {
+        trace.execution(table.getStartedAt(row), table.getFinishedAt(row), table, row, null);
     }
 
     private void printContextSwitch() {
-        String ctxSwitch = String.format(
-            "%-15s %s",
-            String.format("time %d-%d:", currentTime, currentTime + contextSwitch),   // time column
-            "Context Switching"
-        );
-        System.out.println(ctxSwitch + "\n===");
-        try {
-            Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt
-        }
+        trace.contextSwitch(currentTime, currentTime + contextSwitch);
     }
 
     // private void printProcessStatuses() {
@@ -96,10 +80,11 @@ public class FCFS extends  Scheduler {
     // }
     
     private void printStats(){
-        System.out.println("╔════════════════════════════════════════════════╗");
-        System.out.println("║       First come First Serve Scheduler Stats   ║");
-        System.out.println("╚════════════════════════════════════════════════╝\n");
-        super.printStatsDetials(finishedProcesses, busyTime, idleTime, ctxSwitchTime);
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║       First come First Serve Scheduler Stats   ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
     }
     
 }
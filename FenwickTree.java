@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/*
+   Fenwick (binary indexed) tree of long weights over the ids 0..capacity-1
+   (row indices of the processes)
+
+   Changing one weight, a prefix sum and finding the id a running total
+   falls on are all O(log n), so a weighted random draw is
+   find(random.nextLong(total())) with no rebuild when ids join (weight
+   set above 0) or leave (weight set back to 0). Growing past the capacity
+   rebuilds the tree in O(n), at most O(1) amortized per id.
+*/
+public class FenwickTree {
+    private long[] tree;      // 1-based: tree[i] sums the weights of ids i-lowbit(i) .. i-1
+    private long[] weight;    // per id
+    private long total;
+
+    public FenwickTree(int capacity) {
+        this.tree = new long[Math.max(capacity, 1) + 1];
+        this.weight = new long[Math.max(capacity, 1)];
+    }
+
+    public int capacity() {
+        return weight.length;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public long get(int id) {
+        return id < weight.length ? weight[id] : 0;
+    }
+
+    public void set(int id, long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("negative weight " + value + " for id " + id);
+        ensureCapacity(id + 1);
+        long delta = value - weight[id];
+        if (delta == 0)
+            return;
+        weight[id] = value;
+        total += delta;
+        for (int i = id + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    // sum of the weights of ids 0..id-1
+    public long prefix(int id) {
+        long sum = 0;
+        for (int i = Math.min(id, weight.length); i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    // the id whose weight covers offset: prefix(id) <= offset < prefix(id + 1)
+    public int find(long offset) {
+        if (offset < 0 || offset >= total)
+            throw new IllegalArgumentException("offset " + offset + " is outside 0.." + total);
+        int id = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            int next = id + step;
+            if (next < tree.length && tree[next] <= offset) {
+                offset -= tree[next];
+                id = next;
+            }
+        }
+        return id;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= weight.length)
+            return;
+        int grown = Math.max(capacity, weight.length + (weight.length >> 1));
+        weight = Arrays.copyOf(weight, grown);
+        tree = new long[grown + 1];
+        for (int i = 1; i <= grown; i++) {
+            tree[i] += weight[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= grown)
+                tree[parent] += tree[i];
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/*
+   binary min-heap over the ids 0..capacity-1 (row indices of the processes)
+   it keeps the heap position of every id so an entry can be re-keyed or
+   removed in O(log n) instead of searching the queue for it
+*/
+public class IndexedMinHeap {
+    private final IntComparator order;
+    private int[] heap;
+    private int[] position;   // slot of each id in heap, -1 when absent
+    private int size;
+
+    public IndexedMinHeap(int capacity, IntComparator order) {
+        this.order = order;
+        this.heap = new int[Math.max(capacity, 1)];
+        this.position = new int[Math.max(capacity, 1)];
+        Arrays.fill(position, -1);
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return id < position.length && position[id] != -1;
+    }
+
+    public void add(int id) {
+        ensureCapacity(id + 1);
+        if (position[id] != -1)
+            throw new IllegalStateException("id " + id + " is already queued");
+        heap[size] = id;
+        position[id] = size;
+        siftUp(size++);
+    }
+
+    public int peek() {
+        if (size == 0)
+            throw new IllegalStateException("heap is empty");
+        return heap[0];
+    }
+
+    public int poll() {
+        int top = peek();
+        removeAt(0);
+        return top;
+    }
+
+    public void remove(int id) {
+        if (!contains(id))
+            throw new IllegalStateException("id " + id + " is not queued");
+        removeAt(position[id]);
+    }
+
+    // the key of id got smaller (e.g. remaining time or priority value decreased)
+    public void decreaseKey(int id) {
+        siftUp(position[id]);
+    }
+
+    // the key of id changed in either direction
+    public void update(int id) {
+        int slot = position[id];
+        siftUp(slot);
+        if (position[id] == slot)
+            siftDown(slot);
+    }
+
+    // ids in heap order; adding them back in this order rebuilds the same heap
+    public int[] toArray() {
+        return Arrays.copyOf(heap, size);
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= position.length)
+            return;
+        int grown = Math.max(capacity, position.length + (position.length >> 1));
+        int old = position.length;
+        position = Arrays.copyOf(position, grown);
+        Arrays.fill(position, old, grown, -1);
+        heap = Arrays.copyOf(heap, grown);
+    }
+
+    private void removeAt(int slot) {
+        int id = heap[slot];
+        int last = heap[--size];
+        position[id] = -1;
+        if (slot == size)
+            return;
+        heap[slot] = last;
+        position[last] = slot;
+        siftUp(slot);
+        if (position[last] == slot)
+            siftDown(slot);
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (order.compare(id, heap[parent]) >= 0)
+                break;
+            heap[slot] = heap[parent];
+            position[heap[slot]] = slot;
+            slot = parent;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) < 0)
+                child++;
+            if (order.compare(id, heap[child]) <= 0)
+                break;
+            heap[slot] = heap[child];
+            position[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+}
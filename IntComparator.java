@@ -0,0 +1,4 @@
+@FunctionalInterface
+public interface IntComparator {
+    int compare(int a, int b);
+}
@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+// growable FIFO ring buffer of row indices, the primitive stand-in for Queue<Process>
+public class IntQueue {
+    private int[] elements;
+    private int head;
+    private int size;
+
+    public IntQueue() {
+        this(16);
+    }
+
+    public IntQueue(int capacity) {
+        elements = new int[Math.max(capacity, 2)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(int value) {
+        if (size == elements.length)
+            grow();
+        elements[(head + size) % elements.length] = value;
+        size++;
+    }
+
+    public int peek() {
+        if (size == 0)
+            throw new IllegalStateException("queue is empty");
+        return elements[head];
+    }
+
+    public int poll() {
+        int value = peek();
+        head = (head + 1) % elements.length;
+        size--;
+        return value;
+    }
+
+    // removes from the tail, the end a work-stealing thief takes from
+    public int pollLast() {
+        if (size == 0)
+            throw new IllegalStateException("queue is empty");
+        size--;
+        return elements[(head + size) % elements.length];
+    }
+
+    // i-th element from the head, 0 <= i < size
+    public int get(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException(i);
+        return elements[(head + i) % elements.length];
+    }
+
+    // head to tail
+    public int[] toArray() {
+        int[] copy = new int[size];
+        for (int i = 0; i < size; i++)
+            copy[i] = get(i);
+        return copy;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int[] grown = new int[elements.length * 2];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+        elements = grown;
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
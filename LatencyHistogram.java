@@ -0,0 +1,149 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+   fixed-size log-bucket histogram of non-negative ints plus running moments
+
+   Values below 128 get a bucket each. Above that every power of two is split
+   into 64 buckets, so a percentile is off by less than 1/64 of its value
+   whatever the range, and the whole histogram is 1664 counters. Count, sum,
+   min, max and the variance (Welford) are exact.
+*/
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;   // per power of two above LINEAR
+    private static final int LINEAR = 2 * SUB_BUCKETS;              // values recorded exactly
+    private static final int BUCKETS = LINEAR + (31 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+    private double mean;
+    private double m2;
+
+    // negative values count towards the moments but land in the lowest bucket
+    public void record(int value) {
+        counts[bucket(Math.max(value, 0))]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public void add(LatencyHistogram other) {
+        if (other.count == 0)
+            return;
+        for (int i = 0; i < BUCKETS; i++)
+            counts[i] += other.counts[i];
+        // Chan et al. parallel combination of the moments
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    // only the non-empty buckets are written
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (long c : counts)
+            if (c != 0)
+                used++;
+        out.writeInt(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeInt(min);
+        out.writeInt(max);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+    }
+
+    // replaces everything recorded so far with what writeTo wrote
+    public void readFrom(DataInput in) throws IOException {
+        Arrays.fill(counts, 0);
+        int used = in.readInt();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= BUCKETS)
+                throw new IOException("corrupt histogram bucket " + bucket);
+            counts[bucket] = in.readLong();
+        }
+        count = in.readLong();
+        sum = in.readLong();
+        min = in.readInt();
+        max = in.readInt();
+        mean = in.readDouble();
+        m2 = in.readDouble();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    // sum / count, exactly what averaging the recorded ints gives
+    public double getMean() {
+        return count == 0 ? 0.0 : sum / (double) count;
+    }
+
+    public double getStdDev() {
+        return count < 2 ? 0.0 : Math.sqrt(m2 / count);
+    }
+
+    public int getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public int getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    // smallest recorded bucket holding at least percentile % of the values,
+    // reported as its upper bound (never above the real maximum)
+    public int getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(Math.max(upperBound(i), min), max);
+        }
+        return max;
+    }
+
+    private static int bucket(int value) {
+        if (value < LINEAR)
+            return value;
+        int shift = 31 - Integer.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR + (shift - 1) * SUB_BUCKETS + ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static int upperBound(int bucket) {
+        if (bucket < LINEAR)
+            return bucket;
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return (int) Math.min(((sub + 1) << shift) - 1, Integer.MAX_VALUE);
+    }
+}
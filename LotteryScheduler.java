@@ -0,0 +1,145 @@
+import java.util.LinkedList;
+import java.util.SplittableRandom;
+
+/*
+   lottery scheduling: every quantum goes to the holder of a random ticket
+
+      new LotteryScheduler(table)                          // quantum 4, tickets by priority, seed 42
+      new LotteryScheduler(table, 2, Tickets.TYPE, 7)
+
+   Every runnable process holds tickets (see Tickets), so over time it gets
+   CPU in proportion to them, and even the poorest process has a chance at
+   every draw. The tickets sit in a FenwickTree indexed by row: an arrival
+   or a finish changes one entry and a draw is one walk down the tree, both
+   O(log n) however many processes come and go. Draws come from a seeded
+   SplittableRandom, so the same seed replays the same run.
+
+   The report adds how far the CPU time of every process and type strayed
+   from what its tickets entitled it to while it was runnable (see
+   ShareAccounting). StrideScheduler gives the same shares without the
+   randomness.
+*/
+public class LotteryScheduler extends Scheduler {
+
+    private final ProcessTable table;
+    private final int quantum;
+    private final Tickets tickets;
+    private final long seed;
+    private final int contextSwitch = 2;
+
+    private int currentTime;
+    private int busyTime;
+    private int idleTime;
+    private int ctxSwitchTime;
+
+    private ShareAccounting share = new ShareAccounting(0);
+
+    public LotteryScheduler(LinkedList<Process> processes) {
+        this(ProcessTable.of(processes));
+    }
+
+    public LotteryScheduler(ProcessTable table) {
+        this(table, 4);
+    }
+
+    public LotteryScheduler(ProcessTable table, int quantum) {
+        this(table, quantum, Tickets.PRIORITY, 42);
+    }
+
+    public LotteryScheduler(ProcessTable table, int quantum, Tickets tickets, long seed) {
+        if (quantum < 1)
+            throw new IllegalArgumentException("quantum must be at least 1: " + quantum);
+        this.table = table;
+        this.quantum = quantum;
+        this.tickets = tickets;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run() {
+        trace.message("╔════════════════════════════════════════════════╗");
+        trace.message("║         Lottery Scheduling Algorithm Trace     ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
+
+        int n = table.size();
+        int[] arrivals = table.rowsByArrival();
+        int next = 0;
+        FenwickTree pool = new FenwickTree(n);
+        SplittableRandom random = new SplittableRandom(seed);
+        share = new ShareAccounting(n);
+
+        int previous = -1;
+        int finished = 0;
+
+        while (finished < n) {
+            while (next < n && table.getArrivalTime(arrivals[next]) <= currentTime) {
+                int p = arrivals[next++];
+                int held = tickets.of(table, p);
+                pool.set(p, held);
+                share.join(p, held, table.getType(p));
+            }
+
+            if (pool.total() == 0) {
+                // jump straight to the next arrival
+                int until = table.getArrivalTime(arrivals[next]);
+                idleTime += until - currentTime;
+                currentTime = until;
+                continue;
+            }
+
+            int p = pool.find(random.nextLong(pool.total()));
+            if (previous != -1 && previous != p) {
+                trace.contextSwitch(currentTime, currentTime + contextSwitch);
+                ctxSwitchTime += contextSwitch;
+                currentTime += contextSwitch;
+            }
+            previous = p;
+
+            if (table.getStartedAt(p) == -1) {
+                table.setStartedAt(p, currentTime);
+                table.setResponseTime(p, currentTime - table.getArrivalTime(p));
+            }
+
+            int runFor = Math.min(quantum, table.getRemainingTime(p));
+            int start = currentTime;
+            table.setRemainingTime(p, table.getRemainingTime(p) - runFor);
+            busyTime += runFor;
+            currentTime += runFor;
+            share.ran(table.getType(p), runFor);
+            trace.execution(start, currentTime, table, p, null);
+
+            if (table.end(p)) {
+                table.setFinishedAt(p, currentTime);
+                table.calculateAllTimes(p);
+                recordFinished(table, p);
+                share.leave(p, (int) pool.get(p), table.getType(p), table.getBurstTime(p));
+                pool.set(p, 0);
+                finished++;
+            }
+        }
+
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
+    }
+
+    // CPU time the type got over the time its tickets entitled it to; 0 when it never ran
+    public double getShareRatio(ProcessType type) {
+        return share.getShareRatio(type);
+    }
+
+    // per process |CPU time - entitlement|, rounded to time units
+    public LatencyHistogram getShareError() {
+        return share.getShareError();
+    }
+
+    private void printStats() {
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║         Lottery Scheduling Algorithm Stats     ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
+        share.print(report, busyTime, "            Share vs Ticket Share               ", "Ticket share");
+        report.println(String.format("%-25s = %d / %s / %d", "Quantum / tickets / seed", quantum, tickets, seed));
+    }
+}
@@ -1,182 +1,386 @@
-import java.util.LinkedList;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Queue;
 
+/*
+   multi-level feedback queue with any number of levels
+
+      new MLFQScheduler(table)                                  // 3 levels: 4, 8, run to completion; boost every 20
+      new MLFQScheduler(table, new int[] { 2, 4, 8, 16, 32 }, 100)
+
+   Level 0 is the highest. A new process starts there, drops a level each
+   time it uses up the quantum of its level, and round-robins at the bottom
+   level once it gets there (forever if that quantum is Integer.MAX_VALUE).
+   Every boostInterval time units everything goes back to level 0.
+
+   As in the Linux O(1) scheduler the non-empty levels are bits of a
+   bitmap: one bit per level in words of 64, plus a summary word with one
+   bit per non-empty word. The highest ready level is two
+   numberOfTrailingZeros away however many levels there are, and a boost
+   only visits levels that hold something. The level and the quantum used
+   of every process live here, indexed by row, not in the ProcessTable.
+
+   Checkpoints copy only what changed since the previous snapshot (see
+   TableSnapshot) plus the ready queues, so they do not hold the loop up
+   for the size of the table.
+*/
 public class MLFQScheduler extends  Scheduler {
-    private Queue<Process>[] queues;
-    private LinkedList<Process> allProcesses;
+    public static final int MAX_LEVELS = 64 * 64;
+
+    private IntQueue[] queues;
+    private ProcessTable table;
     private int currentTime;
     private final int contextSwitches;
     private int lastBoostTime;
-    private Process currentProcess;
-
-    private List<Process> finishedProcesses;
+    private int currentProcess;
 
     private int busyTime;
     private int idleTime;
     private int ctxSwitchTime;
 
-    private static final int BOOST_INTERVAL = 20;
+    private final int[] quantum;      // per level
+    private final int boostInterval;
+    private final String[] queueLabels;
+    private final String[] queueNames;
+
+    private final long[] readyLevels;   // bit l % 64 of word l / 64: queues[l] is not empty
+    private long readyWords;            // bit w: readyLevels[w] != 0
+
+    private int[] level;                // per row
+    private int[] quantumUsed;          // per row, at its current level
+
+    private int[] arrivals;     // rows by arrival time, consumed through next
+    private int next;
+    private int unfinished;
+    private boolean resumed;    // next and unfinished came from a checkpoint
+
+    private Checkpoint checkpoint;
+    private TableSnapshot snapshot;
+    private static final String CHECKPOINT_KIND = "MLFQ";
+    private static final String EVENT_SOURCE = "MLFQ";
+    private int lastProcessId = -1;   // for the previous process of ContextSwitch events
 
-    @SuppressWarnings("unchecked")
     public MLFQScheduler(List<Process> processes) {
+        this(ProcessTable.of(processes));
+    }
+
+    public MLFQScheduler(ProcessTable table) {
+        this(table, new int[] { 4, 8, Integer.MAX_VALUE }, 20);
+    }
 
-        this.queues = (Queue<Process>[]) new Queue[3];
-        this.queues[0] = new LinkedList<>();
-        this.queues[1] = new LinkedList<>();
-        this.queues[2] = new LinkedList<>();
+    // quantum[i] is the slice of level i, each at least 1
+    public MLFQScheduler(ProcessTable table, int[] quantum, int boostInterval) {
+        if (quantum.length < 1 || quantum.length > MAX_LEVELS)
+            throw new IllegalArgumentException("between 1 and " + MAX_LEVELS + " levels, not " + quantum.length);
+        for (int q : quantum)
+            if (q < 1)
+                throw new IllegalArgumentException("quantum must be at least 1: " + q);
+        if (boostInterval < 1)
+            throw new IllegalArgumentException("boost interval must be at least 1: " + boostInterval);
+        this.quantum = quantum.clone();
+        this.boostInterval = boostInterval;
 
-        this.allProcesses = new LinkedList<>(processes);
+        int levels = quantum.length;
+        this.queues = new IntQueue[levels];
+        this.queueLabels = new String[levels];
+        this.queueNames = new String[levels];
+        for (int i = 0; i < levels; i++) {
+            queues[i] = new IntQueue();
+            queueNames[i] = "Q" + i;
+            queueLabels[i] = String.format("%-7squeue", queueNames[i]);
+        }
+        this.readyLevels = new long[(levels + 63) >>> 6];
+
+        this.table = table;
+        this.level = new int[table.size()];
+        this.quantumUsed = new int[table.size()];
 
         this.currentTime = 0;
         this.contextSwitches = 2;
         this.lastBoostTime = 0;
-        this.currentProcess = null;
+        this.currentProcess = -1;
 
-        this.finishedProcesses = new LinkedList<>();
         this.busyTime = 0;
         this.idleTime = 0;
         this.ctxSwitchTime = 0;
     }
 
     public void run() {
-        System.out.println("╔═════════════════════════════════════════════════════════╗");
-        System.out.println("║       Multi-Level Feedback Queue Scheduler Trace        ║");
-        System.out.println("╚═════════════════════════════════════════════════════════╝\n");
+        trace.message("╔═════════════════════════════════════════════════════════╗");
+        trace.message("║       Multi-Level Feedback Queue Scheduler Trace        ║");
+        trace.message("╚═════════════════════════════════════════════════════════╝\n");
+
+        arrivals = table.rowsByArrival();
+        if (checkpoint != null)
+            snapshot = new TableSnapshot(table, level, quantumUsed);
+        if (!resumed) {
+            next = 0;
+            unfinished = table.size();
+        }
 
-        while (!isComplete()) {
+        // each pass is one decision point; time jumps straight to the end of
+        // the slice or to the next arrival instead of ticking
+        while (unfinished > 0) {
+            if (checkpoint != null && checkpoint.isDue())
+                saveCheckpoint();
 
-            if (currentTime - lastBoostTime >= BOOST_INTERVAL && currentTime > 0) {
+            if (currentTime - lastBoostTime >= boostInterval && currentTime > 0) {
                 performPriorityBoost();
                 lastBoostTime = currentTime;
             }
 
-            handleArrivals();
+            handleArrivals(currentTime);
 
-            if (currentProcess == null) {
+            if (currentProcess == -1) {
                 currentProcess = selectNextProcess();
-                if (currentProcess != null) {
+                if (currentProcess != -1) {
+                    trace.contextSwitch(currentTime, currentTime + contextSwitches);
+                    SchedulerEvents.contextSwitch(EVENT_SOURCE, currentTime, table.getProcessId(currentProcess),
+                            lastProcessId, contextSwitches);
+                    lastProcessId = table.getProcessId(currentProcess);
                     ctxSwitchTime += contextSwitches;
                     currentTime += contextSwitches;
                 }
             }
 
-            if (currentProcess != null) {
-                busyTime++;
+            if (currentProcess != -1) {
                 executeProcess(currentProcess);
-                printProcessStatuses();
             } else {
-                idleTime++;
-                currentTime++;
+                skipIdle();
             }
-
-            updateWaitingTimes();
-            
         }
-        printStats();    
-        calculateMetrics();
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
     }
 
-    private void handleArrivals() {
-        for (Process p : allProcesses) {
-            if (p.getArrivalTime() == currentTime) {
-                queues[0].offer(p);
-                p.currentQueue = 0;
-            }
-        }
+    // periodic snapshots of this run, or null for none
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
     }
 
-    private Process selectNextProcess() {
-        for (int i = 0; i < 3; i++) {
-            if (!queues[i].isEmpty()) {
-                return queues[i].poll();
-            }
-        }
-        return null;
+    public int getLevels() {
+        return quantum.length;
     }
 
-    private void executeProcess(Process p) {
-        boolean completed = p.execute(currentTime);
-        currentTime++;
+    public int getQuantum(int level) {
+        return quantum[level];
+    }
 
-        if (completed) {
-            p.setFinishedAt(currentTime);
-            finishedProcesses.add(p);
-            currentProcess = null;
-        } else if (p.isQuantumExhausted()) {
-            p.demote();
-            queues[p.currentQueue].offer(p);
-            currentProcess = null;
-        }
+    public int getBoostInterval() {
+        return boostInterval;
     }
 
-    private void performPriorityBoost() {
-        LinkedList<Process> toBoost = new LinkedList<>();
+    // the scheduler as it was at the last snapshot in file; run() carries on from there
+    public static MLFQScheduler resume(Path file) throws IOException {
+        return resume(file, new SimulationContext());
+    }
 
-        for (int i = 1; i < 3; i++) {
-            toBoost.addAll(queues[i]);
-            queues[i].clear();
+    // as resume(file), with the statistics of the finished processes read into context
+    public static MLFQScheduler resume(Path file, SimulationContext context) throws IOException {
+        try (DataInputStream in = Checkpoint.open(file, CHECKPOINT_KIND)) {
+            int[] quantum = Checkpoint.readInts(in);
+            int boostInterval = in.readInt();
+            MLFQScheduler mlfq = new MLFQScheduler(ProcessTable.readFrom(in), quantum, boostInterval);
+            mlfq.setContext(context);
+            for (int i = 0; i < mlfq.queues.length; i++)
+                for (int row : Checkpoint.readInts(in))
+                    mlfq.enqueue(i, row);
+            Checkpoint.readInts(in, mlfq.level, mlfq.level.length);
+            Checkpoint.readInts(in, mlfq.quantumUsed, mlfq.quantumUsed.length);
+            mlfq.currentTime = in.readInt();
+            mlfq.lastBoostTime = in.readInt();
+            mlfq.currentProcess = in.readInt();
+            mlfq.busyTime = in.readInt();
+            mlfq.idleTime = in.readInt();
+            mlfq.ctxSwitchTime = in.readInt();
+            mlfq.next = in.readInt();
+            mlfq.unfinished = in.readInt();
+            mlfq.stats.readFrom(in);
+            mlfq.resumed = true;
+            return mlfq;
         }
+    }
 
-        if (currentProcess != null && currentProcess.currentQueue > 0) {
-            toBoost.add(currentProcess);
-            currentProcess = null;
-        }
+    // copies what changed since the last snapshot and leaves the rest to the checkpoint thread
+    private void saveCheckpoint() {
+        TableSnapshot.Delta rows = snapshot.take(table, level, quantumUsed);
+        int[][] ready = new int[queues.length][];
+        for (int i = 0; i < queues.length; i++)
+            ready[i] = queues[i].toArray();
+        int[] clock = { currentTime, lastBoostTime, currentProcess, busyTime, idleTime, ctxSwitchTime, next, unfinished };
+        SchedulerStats finished = stats.copy();
+        TableSnapshot shadow = snapshot;
+        checkpoint.save(CHECKPOINT_KIND, out -> {
+            shadow.apply(rows);
+            Checkpoint.writeInts(out, quantum);
+            out.writeInt(boostInterval);
+            shadow.writeTo(out);
+            for (int[] q : ready)
+                Checkpoint.writeInts(out, q);
+            Checkpoint.writeInts(out, shadow.extra(0), shadow.extra(0).length);
+            Checkpoint.writeInts(out, shadow.extra(1), shadow.extra(1).length);
+            for (int v : clock)
+                out.writeInt(v);
+            finished.writeTo(out);
+        });
+    }
 
-        for (Process p : toBoost) {
-            p.boost();
-            queues[0].offer(p);
+    // arrivals up to and including time, in (arrival, row) order
+    private void handleArrivals(int time) {
+        while (next < arrivals.length && table.getArrivalTime(arrivals[next]) <= time) {
+            int p = arrivals[next++];
+            level[p] = 0;
+            quantumUsed[p] = 0;
+            enqueue(0, p);
         }
+    }
 
-        if (!toBoost.isEmpty()) {
-            System.out.println("[Time " + currentTime + "] Priority boost: " +
-                    toBoost.size() + " processes moved to Q0");
+    private void enqueue(int l, int p) {
+        queues[l].add(p);
+        readyLevels[l >>> 6] |= 1L << l;
+        readyWords |= 1L << (l >>> 6);
+    }
+
+    private int dequeue(int l) {
+        int p = queues[l].poll();
+        if (queues[l].isEmpty()) {
+            readyLevels[l >>> 6] &= ~(1L << l);
+            if (readyLevels[l >>> 6] == 0)
+                readyWords &= ~(1L << (l >>> 6));
         }
+        return p;
     }
 
-    private void updateWaitingTimes() {
-        for (Process p : allProcesses) {
-            if (p.getArrivalTime() <= currentTime &&
-                p.getRemainingTime() > 0 &&
-                p != currentProcess &&
-                !p.isQuantumExhausted()) {
+    // lowest numbered non-empty level, -1 when all are empty
+    private int highestReadyLevel() {
+        if (readyWords == 0)
+            return -1;
+        int w = Long.numberOfTrailingZeros(readyWords);
+        return (w << 6) + Long.numberOfTrailingZeros(readyLevels[w]);
+    }
+
+    private int selectNextProcess() {
+        int l = highestReadyLevel();
+        return l == -1 ? -1 : dequeue(l);
+    }
+
+    // runs p until it finishes, uses up its quantum or the next boost is due
+    private void executeProcess(int p) {
+        if (snapshot != null)
+            snapshot.touch(p);
+        int start = currentTime;
+        if (table.getResponseTime(p) == -1) {
+            table.setStartedAt(p, start);
+            table.setResponseTime(p, start - table.getArrivalTime(p));
+        }
+
+        int l = level[p];
+        int runFor = Math.min(table.getRemainingTime(p), quantum[l] - quantumUsed[p]);
+        runFor = (int) Math.min(runFor, nextBoost(start) - start);
+
+        if (SchedulerEvents.queueDepthEnabled())
+            recordQueueDepths();
+        SchedulerEvents.Dispatch dispatch = SchedulerEvents.beginDispatch();
+        table.setRemainingTime(p, table.getRemainingTime(p) - runFor);
+        quantumUsed[p] += runFor;
+        busyTime += runFor;
+        currentTime += runFor;
+        trace.execution(start, currentTime, table, p, queueLabels[l]);
+        SchedulerEvents.dispatched(dispatch, EVENT_SOURCE, start, table.getProcessId(p), l, runFor,
+                table.getRemainingTime(p));
 
-                p.setWaitingTime(p.getWaitingTime() + 1);
+        // anything that arrived while p ran is queued ahead of p
+        handleArrivals(currentTime - 1);
+
+        if (table.end(p)) {
+            table.setFinishedAt(p, currentTime);
+            table.calculateAllTimes(p);
+            recordFinished(table, p);
+            unfinished--;
+            currentProcess = -1;
+        } else if (quantumUsed[p] >= quantum[l]) {
+            SchedulerEvents.preempted(EVENT_SOURCE, currentTime, table.getProcessId(p), l, "quantum expired",
+                    table.getRemainingTime(p));
+            // the bottom level round-robins
+            if (l < quantum.length - 1) {
+                level[p] = l + 1;
+                SchedulerEvents.queueChange(EVENT_SOURCE, currentTime, table.getProcessId(p), l, l + 1, "demotion");
             }
+            quantumUsed[p] = 0;
+            enqueue(level[p], p);
+            currentProcess = -1;
         }
     }
 
-    private boolean isComplete() {
-        for (Process p : allProcesses) {
-            if (p.getRemainingTime() > 0)
-                return false;
-        }
-        return true;
+    // first instant after time at which a boost may be due; long as an interval near Integer.MAX_VALUE overflows
+    private long nextBoost(int time) {
+        return Math.max(time + 1L, (long) lastBoostTime + boostInterval);
     }
 
-    private void calculateMetrics() {
-        for (Process p : allProcesses) {
-            p.setTurnaroundTime(p.getFinishedAt() - p.getArrivalTime());
-        }
+    // nothing is ready: jump to the next arrival, keeping the boost clock
+    // where ticking through the idle stretch would have left it
+    private void skipIdle() {
+        int until = table.getArrivalTime(arrivals[next]);
+        long firstBoost = nextBoost(currentTime);
+        if (firstBoost < until)
+            lastBoostTime = (int) (firstBoost + (until - 1 - firstBoost) / boostInterval * boostInterval);
+        idleTime += until - currentTime;
+        currentTime = until;
     }
 
-    private void printProcessStatuses() {
-        for (Process p : allProcesses) {
-            String status;
-            if (p.getFinishedAt() != -1) {
-                status = "terminated";
-            } else {
-                status = "ready";
+    private void performPriorityBoost() {
+        int boosted = 0;
+        // every non-empty level below 0, found through the bitmap
+        for (int w = 0; w < readyLevels.length; w++) {
+            long bits = readyLevels[w] & (w == 0 ? ~1L : -1L);
+            while (bits != 0) {
+                int l = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                while (!queues[l].isEmpty()) {
+                    int p = dequeue(l);
+                    if (snapshot != null)
+                        snapshot.touch(p);
+                    level[p] = 0;
+                    quantumUsed[p] = 0;
+                    SchedulerEvents.queueChange(EVENT_SOURCE, currentTime, table.getProcessId(p), l, 0, "boost");
+                    enqueue(0, p);
+                    boosted++;
+                }
             }
-            System.out.println(String.format("  %s : %s", p.getName(), status));
         }
-        System.out.println();
+
+        if (currentProcess != -1 && level[currentProcess] > 0) {
+            if (snapshot != null)
+                snapshot.touch(currentProcess);
+            SchedulerEvents.preempted(EVENT_SOURCE, currentTime, table.getProcessId(currentProcess),
+                    level[currentProcess], "priority boost", table.getRemainingTime(currentProcess));
+            SchedulerEvents.queueChange(EVENT_SOURCE, currentTime, table.getProcessId(currentProcess),
+                    level[currentProcess], 0, "boost");
+            level[currentProcess] = 0;
+            quantumUsed[currentProcess] = 0;
+            enqueue(0, currentProcess);
+            currentProcess = -1;
+            boosted++;
+        }
+
+        if (boosted > 0) {
+            trace.message("[Time " + currentTime + "] Priority boost: " +
+                    boosted + " processes moved to Q0");
+        }
+    }
+
+    private void recordQueueDepths() {
+        for (int i = 0; i < queues.length; i++)
+            SchedulerEvents.queueDepth(EVENT_SOURCE, currentTime, i, queueNames[i], queues[i].size());
     }
 
     private void printStats(){
-        System.out.println("╔═══════════════════════════════════════════════════╗");
-        System.out.println("║      Multi-Level Feedback Queue Scheduler Stats   ║");
-        System.out.println("╚═══════════════════════════════════════════════════╝\n");
-        super.printStatsDetials(finishedProcesses, busyTime, idleTime, ctxSwitchTime);
+        trace.flush();
+        report.println("╔═══════════════════════════════════════════════════╗");
+        report.println("║      Multi-Level Feedback Queue Scheduler Stats   ║");
+        report.println("╚═══════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
     }
 }
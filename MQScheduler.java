@@ -1,68 +1,172 @@
 
-import java.util.Comparator;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /*
-   make two threads one to keep adding processes to the scheudler and one to run the schdeuler to see the simulation
+   live mode: new MQScheduler() starts empty and any number of threads may
+   submit() processes while another thread is inside run(). Submissions go
+   through a lock-free queue and are drained in batches at each scheduling
+   decision, so producers never block the simulation. A process submitted
+   with an arrival time the simulation has already passed is queued at the
+   decision that picks it up but keeps the arrival it was submitted with,
+   so its waiting, turnaround and response times include the time the
+   producers were behind. run() returns once close() has been called and
+   everything submitted before it has finished.
+
+   setCheckpoint() snapshots the whole state now and then at a decision
+   point; resume() carries on from the file with the same results as a run
+   that never stopped. A snapshot holds the loop up only to copy what
+   changed since the previous one (see TableSnapshot) plus the ready
+   queues; the future arrivals are not saved, as resume() rebuilds them
+   from the rows that never started. Submissions still in the inbox are not part of a
+   snapshot, and a resumed scheduler takes no new ones. Hand the context of
+   the resumed run to resume(file, context): the snapshot's statistics are
+   read into it, and setContext() refuses a scheduler that holds them.
 */
 
-@SuppressWarnings({"unused", "unchecked"})
+@SuppressWarnings("unused")
 public class MQScheduler extends  Scheduler{
-   private final int NUMBER_OF_QUEUES = 4;
+   private static final int NUMBER_OF_QUEUES = 4;
    private final int QUANTUM = 4;
-   private Queue<Process>[] queues;
-   private Queue<Process>[] priorityQueues;
-   private PriorityQueue<Process> processes;
-   private Process currentProcess;
-   private Process previousProcess;
+   private static final String[] QUEUE_LABELS = new String[ProcessType.values().length];
+   static {
+      for (ProcessType type : ProcessType.values())
+         QUEUE_LABELS[type.getQueueIndex()] = String.format("%-6s queue", type);
+   }
+   private IntQueue[] queues;
+   private IndexedMinHeap[] priorityQueues;   // future arrivals per queue, by (arrival, id)
+   private ProcessTable table;
+   private IntQueue processes;          // rows not yet placed, in (arrival, id) order
+   private int currentProcess;
+   private int previousProcess;
    private int contextSwitch;
    private int currentTime;
+   // live submissions
+   private static final int DRAIN_BATCH = 4096;
+   private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+   private final MpscQueue<Submission> inbox = new MpscQueue<>();
+   private volatile boolean open;
+   private Checkpoint checkpoint;
+   private TableSnapshot snapshot;
+   private static final String CHECKPOINT_KIND = "MQ";
+   private static final String EVENT_SOURCE = "MQ";
    // CPU utilization tracking
    private int busyTime;        // time units CPU spent executing processes
    private int idleTime;        // time units CPU was idle (no ready processes)
    private int ctxSwitchTime;   // time units spent on context switches
-   private List<Process> finishedProcesses;
 
+   // live mode, fed through submit() until close()
    public MQScheduler() {
-      processes = new PriorityQueue<>(
-        Comparator.comparingInt(Process::getArrivalTime)
-            .thenComparingInt(Process::getProcessId)
-      );
+      this(new ProcessTable(), true);
+   }
+
+   public MQScheduler(LinkedList<Process> rawProcesses) {
+      this(ProcessTable.of(rawProcesses));
+   }
+
+   public MQScheduler(ProcessTable table) {
+      this(table, false);
+   }
+
+   private MQScheduler(ProcessTable table, boolean open) {
+      this.table = table;
+      this.open = open;
+      processes = new IntQueue();
 
-      finishedProcesses = new LinkedList<>();
       contextSwitch = 2;
-      currentProcess = null;
+      currentProcess = -1;
+      previousProcess = -1;
       currentTime = 0;
       busyTime = 0;
       idleTime = 0;
       ctxSwitchTime = 0;
-   }
 
-   public MQScheduler(LinkedList<Process> rawProcesses) {
-      this();
-      initiateProcesses(rawProcesses);
+      initiateProcesses();
       initQueues();
       initPriorityQueues();
    }
 
-   private void initiateProcesses(LinkedList<Process> rawProcesses) {
-      for(var process : rawProcesses) {
-         processes.add(process);    // sorting all the processes based on their arrival time
-      }    
+   // periodic snapshots of this run, or null for none
+   public void setCheckpoint(Checkpoint checkpoint) {
+      this.checkpoint = checkpoint;
+   }
+
+   // the scheduler as it was at the last snapshot in file; run() carries on from there
+   public static MQScheduler resume(Path file) throws IOException {
+      return resume(file, new SimulationContext());
+   }
+
+   // as resume(file), with the statistics of the finished processes read into context
+   public static MQScheduler resume(Path file, SimulationContext context) throws IOException {
+      MQScheduler mq = new MQScheduler(new ProcessTable(), false);
+      mq.setContext(context);
+      try (DataInputStream in = Checkpoint.open(file, CHECKPOINT_KIND)) {
+         mq.table = ProcessTable.readFrom(in);
+         boolean[] ready = new boolean[mq.table.size()];
+         for (int i = 0; i < NUMBER_OF_QUEUES; i++)
+            for (int row : Checkpoint.readInts(in)) {
+               mq.queues[i].add(row);
+               ready[row] = true;
+            }
+         // at a decision point every row that never ran and is not ready is a future arrival
+         for (int row = 0; row < ready.length; row++)
+            if (!ready[row] && mq.table.getResponseTime(row) == -1)
+               mq.addProcessToPriorityQueue(row);
+         mq.currentProcess = in.readInt();
+         mq.previousProcess = in.readInt();
+         mq.currentTime = in.readInt();
+         mq.busyTime = in.readInt();
+         mq.idleTime = in.readInt();
+         mq.ctxSwitchTime = in.readInt();
+         mq.stats.readFrom(in);
+      }
+      return mq;
+   }
+
+   // copies what changed since the last snapshot and leaves the rest to the checkpoint thread
+   private void saveCheckpoint() {
+      TableSnapshot.Delta rows = snapshot.take(table);
+      int[][] ready = new int[NUMBER_OF_QUEUES][];
+      for (int i = 0; i < NUMBER_OF_QUEUES; i++)
+         ready[i] = queues[i].toArray();
+      int[] clock = { currentProcess, previousProcess, currentTime, busyTime, idleTime, ctxSwitchTime };
+      SchedulerStats finished = stats.copy();
+      TableSnapshot shadow = snapshot;
+      checkpoint.save(CHECKPOINT_KIND, out -> {
+         shadow.apply(rows);
+         shadow.writeTo(out);
+         for (int[] q : ready)
+            Checkpoint.writeInts(out, q);
+         for (int v : clock)
+            out.writeInt(v);
+         finished.writeTo(out);
+      });
+   }
+
+   private void initiateProcesses() {
+      // sorting all the processes based on their arrival time
+      int[] sorted = table.sortedRows((a, b) -> {
+         int c = Integer.compare(table.getArrivalTime(a), table.getArrivalTime(b));
+         return c != 0 ? c : Integer.compare(table.getProcessId(a), table.getProcessId(b));
+      });
+      for (int row : sorted) {
+         processes.add(row);
+      }
    }
 
    private void initQueues() {
-      queues = (Queue<Process>[]) new Queue[NUMBER_OF_QUEUES];
+      queues = new IntQueue[NUMBER_OF_QUEUES];
       for(int i = 0; i < NUMBER_OF_QUEUES; i ++) {
-         queues[i] = new LinkedList<>();
+         queues[i] = new IntQueue();
       }
 
       while(!processes.isEmpty()) {
-         var process = processes.element();
-         if(process.getArrivalTime() == 0) { // initially put the processes with arrival time = 0
+         var process = processes.peek();
+         if(table.getArrivalTime(process) == 0) { // initially put the processes with arrival time = 0
             addProcesstoQueue(process);
             processes.poll();
          } else {
@@ -72,34 +176,55 @@ public class MQScheduler extends  Scheduler{
    }
 
    private void initPriorityQueues() {
-      priorityQueues = (Queue<Process>[]) new Queue[NUMBER_OF_QUEUES];
+      // live submissions can come in any arrival order, so the future
+      // arrivals of each queue are a heap rather than a FIFO
+      IntComparator byArrival = (a, b) -> {
+         int c = Integer.compare(table.getArrivalTime(a), table.getArrivalTime(b));
+         if (c != 0) return c;
+         c = Integer.compare(table.getProcessId(a), table.getProcessId(b));
+         return c != 0 ? c : Integer.compare(a, b);
+      };
+      priorityQueues = new IndexedMinHeap[NUMBER_OF_QUEUES];
       for(int i = 0; i < NUMBER_OF_QUEUES; i ++) {
-         priorityQueues[i] = new PriorityQueue<>(
-        Comparator.comparingInt(Process::getArrivalTime)
-                  .thenComparingInt(Process::getProcessId)
-);
-
+         priorityQueues[i] = new IndexedMinHeap(table.size(), byArrival);
       }
 
       while(!processes.isEmpty()) {
          var process = processes.poll();
-         if(process.getArrivalTime() != 0)   // put the rest of the processes in the PQ
+         if(table.getArrivalTime(process) != 0)   // put the rest of the processes in the PQ
             addProcessToPriorityQueue(process);
       }
    }
 
    public void run() {
-      System.out.println("╔════════════════════════════════════════════════╗");
-      System.out.println("║       Multi-Level Queue Scheduler Trace        ║");
-      System.out.println("╚════════════════════════════════════════════════╝\n");
+      trace.message("╔════════════════════════════════════════════════╗");
+      trace.message("║       Multi-Level Queue Scheduler Trace        ║");
+      trace.message("╚════════════════════════════════════════════════╝\n");
 
       runScheduler();      
-      printStats();
+      summarize(busyTime, idleTime, ctxSwitchTime);
+      if (reporting)
+         printStats();
    }
 
    public void runScheduler() {
+      if (checkpoint != null)
+         snapshot = new TableSnapshot(table);
       // main loop
-      while (hasPendingProcesses()) {
+      while (true) {
+         // read before draining: whatever was submitted before close() is in the inbox by now
+         boolean closed = !open;
+         drainSubmissions();
+         if (checkpoint != null && checkpoint.isDue())
+            saveCheckpoint();
+         if (!hasPendingProcesses()) {
+            if (inbox.isEmpty()) {
+               if (closed)
+                  break;
+               awaitSubmissions();
+            }
+            continue;
+         }
          previousProcess = currentProcess;
 
          fillQueues();                             // 1) move arrivals from future priority queues into ready queues    
@@ -122,6 +247,8 @@ public class MQScheduler extends  Scheduler{
          // we have a process to run
          var proc = queues[selected].poll();
          currentProcess = proc;
+         if (snapshot != null)
+            snapshot.touch(proc);
          checkForContextSwitch();
 
          // compute time until next arrival from a higher priority queue
@@ -131,44 +258,117 @@ public class MQScheduler extends  Scheduler{
 
          setResponseTime(proc);
 
+         if (SchedulerEvents.queueDepthEnabled())
+            recordQueueDepths();
+
          // execute for runFor time units (decrement remaining) and log each time unit
          int before = currentTime;
+         SchedulerEvents.Dispatch dispatch = SchedulerEvents.beginDispatch();
          execute(proc, runFor);
+         SchedulerEvents.dispatched(dispatch, EVENT_SOURCE, before, table.getProcessId(proc), selected,
+               runFor, table.getRemainingTime(proc));
          checkForCompletion(proc, before, selected);  // 4) update completion / requeue
       }
    }
 
-   private void checkForCompletion(Process proc, int before, int selected) {
-      proc.setFinishedAt(currentTime);
+   // thread-safe; matches WorkloadConsumer, so WorkloadParser.parse(file, mq::submit) streams a file in
+   public void submit(String name, int processId, int arrivalTime, int burstTime, int priority, ProcessType type) {
+      if (!open)
+         throw new IllegalStateException("scheduler is closed to new processes");
+      inbox.offer(new Submission(name, processId, arrivalTime, burstTime, priority, type));
+   }
+
+   // no more submissions; call once every producer is done
+   public void close() {
+      open = false;
+   }
+
+   private void drainSubmissions() {
+      while (inbox.drain(this::admit, DRAIN_BATCH) == DRAIN_BATCH) {
+         // keep going until the inbox is empty
+      }
+   }
+
+   private void admit(Submission s) {
+      int row = table.add(s.name, s.processId, s.arrivalTime, s.burstTime, s.priority, s.type);
+      // late ones are ready now; only the queueing is clamped, not the arrival
+      if (s.arrivalTime <= currentTime)
+         addProcesstoQueue(row);
+      else
+         addProcessToPriorityQueue(row);
+   }
+
+   // nothing to simulate until a producer submits or the scheduler is closed
+   private void awaitSubmissions() {
+      for (int spins = 0; inbox.isEmpty() && open; spins++) {
+         if (spins < 100)
+            Thread.onSpinWait();
+         else if (spins < 200)
+            Thread.yield();
+         else
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+   }
+
+   private static final class Submission {
+      final String name;
+      final int processId;
+      final int arrivalTime;
+      final int burstTime;
+      final int priority;
+      final ProcessType type;
+
+      Submission(String name, int processId, int arrivalTime, int burstTime, int priority, ProcessType type) {
+         this.name = name;
+         this.processId = processId;
+         this.arrivalTime = arrivalTime;
+         this.burstTime = burstTime;
+         this.priority = priority;
+         this.type = type;
+      }
+   }
+
+   private void checkForCompletion(int proc, int before, int selected) {
+      table.setFinishedAt(proc, currentTime);
 
       printProcess(before, selected);
-      if (proc.end()) {
+      if (table.end(proc)) {
          updateProcess(proc);            
       } else {
+         boolean quantum = selected != NUMBER_OF_QUEUES - 1 && currentTime - before == QUANTUM;
+         SchedulerEvents.preempted(EVENT_SOURCE, currentTime, table.getProcessId(proc), selected,
+               quantum ? "quantum expired" : "higher-priority arrival", table.getRemainingTime(proc));
          queues[selected].add(proc);      // no-feedback: stays in same queue
       }
    }
 
-   private void setResponseTime(Process proc) {
+   private void recordQueueDepths() {
+      for (int i = 0; i < NUMBER_OF_QUEUES; i++)
+         SchedulerEvents.queueDepth(EVENT_SOURCE, currentTime, i, QUEUE_LABELS[i].trim(), queues[i].size());
+   }
+
+   private void setResponseTime(int proc) {
       // set response time if this is the first time the process runs        
-      if (proc.getResponseTime() == -1) {
-         proc.setStartedAt(currentTime);
-         proc.setResponseTime(currentTime - proc.getArrivalTime());  // response time = start - arrive
+      if (table.getResponseTime(proc) == -1) {
+         table.setStartedAt(proc, currentTime);
+         table.setResponseTime(proc, currentTime - table.getArrivalTime(proc));  // response time = start - arrive
       }
    }
 
    private void checkForContextSwitch() {
-      if(previousProcess != null && currentProcess != null && previousProcess.getProcessId() != currentProcess.getProcessId()) {            
+      if(previousProcess != -1 && currentProcess != -1 && table.getProcessId(previousProcess) != table.getProcessId(currentProcess)) {            
          printContextSwitch();
+         SchedulerEvents.contextSwitch(EVENT_SOURCE, currentTime, table.getProcessId(currentProcess),
+               table.getProcessId(previousProcess), contextSwitch);
          currentTime += contextSwitch;
          // account for context-switch time
          ctxSwitchTime += contextSwitch;
       }
    }
 
-   private void execute(Process proc, int runFor) {
+   private void execute(int proc, int runFor) {
       for (int t = 0; t < runFor; t++) {
-         proc.decrement();
+         table.decrement(proc);
          currentTime++;
          // account as busy CPU time
          busyTime++;
@@ -177,20 +377,19 @@ public class MQScheduler extends  Scheduler{
       }
    }
 
-   private void updateProcess(Process proc) {
-      proc.setTurnaroundTime(proc.getFinishedAt() - proc.getArrivalTime());
-      proc.setWaitingTime(proc.getTurnaroundTime() - proc.getBurstTime());      
-      finishedProcesses.add(proc);
+   private void updateProcess(int proc) {
+      table.calculateAllTimes(proc);
+      recordFinished(table, proc);
    }
 
-   private int allowedRunningTime(int selected, int timeUntilNextHigher, Process proc) {
+   private int allowedRunningTime(int selected, int timeUntilNextHigher, int proc) {
       int runFor;
       if (selected == NUMBER_OF_QUEUES - 1) {
          // FCFS: run to completion or until a higher-priority arrival
-         runFor = Math.min(proc.getRemainingTime(), timeUntilNextHigher);
+         runFor = Math.min(table.getRemainingTime(proc), timeUntilNextHigher);
       } else {
          // RR: run up to quantum, to completion, or until higher-priority arrival
-         runFor = Math.min(timeUntilNextHigher, Math.min(QUANTUM, proc.getRemainingTime()));
+         runFor = Math.min(timeUntilNextHigher, Math.min(QUANTUM, table.getRemainingTime(proc)));
       }
       return runFor;
    }
@@ -198,7 +397,7 @@ public class MQScheduler extends  Scheduler{
    private void fillQueues() {
       for (int i = 0; i < NUMBER_OF_QUEUES; i++) {
          var pq = priorityQueues[i];
-         while (pq != null && !pq.isEmpty() && pq.element().getArrivalTime() <= currentTime) {
+         while (pq != null && !pq.isEmpty() && table.getArrivalTime(pq.peek()) <= currentTime) {
             queues[i].add(pq.poll());
          }
       }
@@ -224,7 +423,7 @@ public class MQScheduler extends  Scheduler{
       for (int i = 0; i < NUMBER_OF_QUEUES; i++) {
          var pq = priorityQueues[i];
          if (pq != null && !pq.isEmpty()) {
-            int a = pq.element().getArrivalTime();
+            int a = table.getArrivalTime(pq.peek());
             if (min == null || a < min) min = a;
          }
       }
@@ -236,69 +435,51 @@ public class MQScheduler extends  Scheduler{
       for (int i = 0; i < currentQueue; i++) {
          var pq = priorityQueues[i];
          if (pq != null && !pq.isEmpty()) {
-            int a = pq.element().getArrivalTime();
+            int a = table.getArrivalTime(pq.peek());
             if (min == null || a < min) min = a;
          }
       }
       return min;
    }
 
-   private void addProcesstoQueue(Process process) {
-      int q = process.getType().getQueueIndex();   
+   private void addProcesstoQueue(int process) {
+      int q = table.getType(process).getQueueIndex();   
       queues[q].add(process);                            
    }
 
-   private void addProcessToPriorityQueue(Process process) {
-      int q = process.getType().getQueueIndex();   
+   private void addProcessToPriorityQueue(int process) {
+      int q = table.getType(process).getQueueIndex();   
       priorityQueues[q].add(process);
    }
 
    private void printContextSwitch() {
-      String ctxSwitch = String.format(
-         "%-15s %s",
-         String.format("time %d-%d:", currentTime, currentTime + contextSwitch),   // time column
-         "Context Switching"
-      );
-      System.out.println(ctxSwitch + "\n===");
-      try {
-         Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-      } catch (InterruptedException e) {
-         Thread.currentThread().interrupt(); // restore interrupt
-      }
+      trace.contextSwitch(currentTime, currentTime + contextSwitch);
    }
 
    private void printProcess(int before, int selected) {
-      String batch = String.format(
-         "%-15s %s %-10s",
-         String.format("time %d-%d:", before, currentTime),   
-         currentProcess.trace(),
-         String.format("%-6s queue", ProcessType.values()[selected])
-      );
-      System.out.println(batch + "\n===");
-      try {
-         Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-      } catch (InterruptedException e) {
-         Thread.currentThread().interrupt(); // restore interrupt
-      }
+      trace.execution(before, currentTime, table, currentProcess, QUEUE_LABELS[selected]);
    }
 
    private void printProcessStatuses() {
-        for (Process p : processes) {
+        if (!trace.isMessageEnabled())
+            return;
+        for (int p = 0; p < table.size(); p++) {
             String status;
-            if (p.getFinishedAt() != -1) {
+            if (table.isFinished(p)) {
                 status = "terminated";
             } else {
                 status = "ready";
             }
-            System.out.println(String.format("  %s : %s", p.getName(), status));
+            trace.message(String.format("  %s : %s", table.getName(p), status));
         }
-        System.out.println();
+        trace.message("");
     }
 
    public void printStats() {
-      System.out.println("╔════════════════════════════════════════════════╗");
-      System.out.println("║       Multi-Level Queue Scheduler Stats        ║");
-      System.out.println("╚════════════════════════════════════════════════╝\n");
-      super.printStatsDetials(finishedProcesses, busyTime, idleTime, ctxSwitchTime);
+      trace.flush();
+      report.println("╔════════════════════════════════════════════════╗");
+      report.println("║       Multi-Level Queue Scheduler Stats        ║");
+      report.println("╚════════════════════════════════════════════════╝\n");
+      super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
    }
 }
\ No newline at end of file
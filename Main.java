@@ -20,6 +20,7 @@ public class Main {
       rawProcesses.addAll(Arrays.asList(a, b, c, d, e, f, g, h, i, j, k, l));
 
       MQScheduler mqScheduler = new MQScheduler(rawProcesses);
+      mqScheduler.setTraceSink(ConsoleTraceSink.paced());
       mqScheduler.run();
 
       // SRTScheduler srtScheduler = new SRTScheduler(rawProcesses);
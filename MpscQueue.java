@@ -0,0 +1,72 @@
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/*
+   unbounded lock-free multi-producer single-consumer queue (Vyukov's
+   intrusive list). offer() is one getAndSet on the tail plus a write of the
+   old tail's next link, so producers never wait on each other or on the
+   consumer. Only one thread may poll or drain.
+*/
+public class MpscQueue<E> {
+
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<E>> tail;
+    private Node<E> head;    // consumer only; always the last node taken (or the stub)
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    public void offer(E value) {
+        if (value == null)
+            throw new NullPointerException();
+        Node<E> node = new Node<>(value);
+        Node<E> previous = tail.getAndSet(node);
+        // between the swap and this link the node is invisible to the consumer
+        previous.next = node;
+    }
+
+    // null when empty, or when the next producer has swapped the tail but not linked yet
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null)
+            return null;
+        E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    // hands up to limit elements to consumer in FIFO order and returns how many
+    public int drain(Consumer<? super E> consumer, int limit) {
+        int drained = 0;
+        Node<E> node = head;
+        while (drained < limit) {
+            Node<E> next = node.next;
+            if (next == null)
+                break;
+            E value = next.value;
+            next.value = null;
+            node = next;
+            head = node;
+            consumer.accept(value);
+            drained++;
+        }
+        return drained;
+    }
+
+    // consumer side: true only once every offer() that has started has been taken
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+}
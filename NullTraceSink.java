@@ -0,0 +1,24 @@
+// headless mode: drops every trace event
+public final class NullTraceSink implements TraceSink {
+    public static final NullTraceSink INSTANCE = new NullTraceSink();
+
+    private NullTraceSink() {
+    }
+
+    @Override
+    public void execution(int start, int end, ProcessTable table, int row, String queue) {
+    }
+
+    @Override
+    public void contextSwitch(int start, int end) {
+    }
+
+    @Override
+    public void message(String text) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/*
+   runs one workload under many scheduler configurations at once
+
+   java ParameterSweep [workload file] [--quanta=1,2,4,8] [--preemptive=true,false]
+
+   The workload is copied once into a private snapshot that nothing ever
+   writes to. Every configuration schedules its own copy of it in a
+   SimulationContext of its own, so the runs share no mutable state and are
+   split across a ForkJoinPool; the whole sweep takes about as long as its
+   slowest run. Runs are headless: no trace and no stats report, only the
+   RunSummary and the percentiles are kept.
+*/
+public class ParameterSweep {
+
+    // one point of the grid: a label for the results table and how to build the scheduler
+    public static final class Configuration {
+        private final String label;
+        private final Function<ProcessTable, Scheduler> factory;
+
+        public Configuration(String label, Function<ProcessTable, Scheduler> factory) {
+            this.label = label;
+            this.factory = factory;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static final class Result {
+        private final Configuration configuration;
+        private final RunSummary summary;
+        private final SchedulerStats stats;
+        private final long elapsedNanos;
+
+        private Result(Configuration configuration, RunSummary summary, SchedulerStats stats, long elapsedNanos) {
+            this.configuration = configuration;
+            this.summary = summary;
+            this.stats = stats;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getLabel() {
+            return configuration.label;
+        }
+
+        public RunSummary getSummary() {
+            return summary;
+        }
+
+        public SchedulerStats getStats() {
+            return stats;
+        }
+
+        // wall-clock time of this run alone
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private final ProcessTable snapshot;
+    private final List<Configuration> configurations = new ArrayList<>();
+
+    public ParameterSweep(ProcessTable workload) {
+        this.snapshot = workload.copy();
+    }
+
+    public ParameterSweep add(String label, Function<ProcessTable, Scheduler> factory) {
+        configurations.add(new Configuration(label, factory));
+        return this;
+    }
+
+    public ParameterSweep roundRobin(int... quanta) {
+        for (int q : quanta)
+            add("RR q=" + q, t -> new RoundRobinScheduler(t, q));
+        return this;
+    }
+
+    public ParameterSweep priority(boolean... preemptive) {
+        for (boolean p : preemptive)
+            add(p ? "Priority preemptive" : "Priority non-preemptive", t -> new PriorityScheduler(t, p));
+        return this;
+    }
+
+    // the schedulers without parameters, as baselines for the tuned ones
+    public ParameterSweep baselines() {
+        add("FCFS", FCFS::new);
+        add("SJF non-preemptive", SJF_NonPreemptive::new);
+        add("SRT", SRTScheduler::new);
+        add("MQ", MQScheduler::new);
+        add("MLFQ", MLFQScheduler::new);
+        return this;
+    }
+
+    // every algorithm of the SchedularTest menu that runs on one CPU, in menu order
+    public ParameterSweep algorithms(int quantum) {
+        add("FCFS", FCFS::new);
+        add("SJF non-preemptive", SJF_NonPreemptive::new);
+        add("SRT", SRTScheduler::new);
+        roundRobin(quantum);
+        priority(false, true);
+        add("MQ", MQScheduler::new);
+        add("MLFQ", MLFQScheduler::new);
+        add("CFS", CFSScheduler::new);
+        add("EDF", t -> new EDFScheduler(t, EDFScheduler.Policy.EARLIEST_DEADLINE));
+        add("Rate monotonic", t -> new EDFScheduler(t, EDFScheduler.Policy.RATE_MONOTONIC));
+        add("Lottery q=" + quantum, t -> new LotteryScheduler(t, quantum));
+        add("Stride q=" + quantum, t -> new StrideScheduler(t, quantum));
+        return this;
+    }
+
+    public List<Configuration> getConfigurations() {
+        return List.copyOf(configurations);
+    }
+
+    public List<Result> run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    // results come back in the order the configurations were added
+    public List<Result> run(ForkJoinPool pool) {
+        Configuration[] grid = configurations.toArray(new Configuration[0]);
+        Result[] results = new Result[grid.length];
+        pool.invoke(new Runs(grid, results, 0, grid.length));
+        return Arrays.asList(results);
+    }
+
+    private final class Runs extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Configuration[] grid;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        Runs(Configuration[] grid, Result[] results, int from, int to) {
+            this.grid = grid;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to)
+                    results[from] = runOne(grid[from]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Runs(grid, results, from, mid), new Runs(grid, results, mid, to));
+        }
+    }
+
+    private Result runOne(Configuration configuration) {
+        long start = System.nanoTime();
+        Scheduler scheduler = configuration.factory.apply(snapshot.copy());
+        scheduler.setContext(SimulationContext.headless());
+        scheduler.run();
+        return new Result(configuration, scheduler.getSummary(), scheduler.getStats(), System.nanoTime() - start);
+    }
+
+    public static void print(List<Result> results, PrintStream out) {
+        out.println(String.format("%-26s %10s %14s %12s %12s %13s",
+                "Configuration", "Finished", "Avg turnaround", "Avg waiting", "Avg response", "Utilization"));
+        out.println("-".repeat(92));
+        for (Result result : results) {
+            RunSummary s = result.summary;
+            out.println(String.format("%-26s %10d %14.2f %12.2f %12.2f %12.2f%%",
+                    result.getLabel(), s.getFinished(), s.getAverageTurnaround(), s.getAverageWaiting(),
+                    s.getAverageResponse(), s.getUtilization()));
+        }
+    }
+
+    // print() plus tail percentiles and how long each run took
+    public static void printComparison(List<Result> results, PrintStream out) {
+        out.println(String.format("%-24s %9s %10s %8s %10s %8s %8s %10s %8s %8s %9s",
+                "Algorithm", "Finished", "Avg turn", "p95", "Avg wait", "p95", "p99", "Avg resp", "p95", "Util", "Time"));
+        out.println("-".repeat(125));
+        for (Result result : results) {
+            RunSummary s = result.summary;
+            LatencyHistogram turnaround = result.stats.get(SchedulerStats.Metric.TURNAROUND);
+            LatencyHistogram waiting = result.stats.get(SchedulerStats.Metric.WAITING);
+            LatencyHistogram response = result.stats.get(SchedulerStats.Metric.RESPONSE);
+            out.println(String.format("%-24s %9d %10.2f %8d %10.2f %8d %8d %10.2f %8d %7.2f%% %7dms",
+                    result.getLabel(), s.getFinished(),
+                    s.getAverageTurnaround(), turnaround.getPercentile(95),
+                    s.getAverageWaiting(), waiting.getPercentile(95), waiting.getPercentile(99),
+                    s.getAverageResponse(), response.getPercentile(95),
+                    s.getUtilization(), result.elapsedNanos / 1_000_000));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of("input.txt");
+        int[] quanta = { 1, 2, 4, 8, 16 };
+        boolean[] preemptive = { false, true };
+        for (String arg : args) {
+            if (arg.startsWith("--quanta=")) {
+                quanta = Arrays.stream(arg.substring("--quanta=".length()).split(","))
+                        .map(String::trim).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("--preemptive=")) {
+                String[] values = arg.substring("--preemptive=".length()).split(",");
+                preemptive = new boolean[values.length];
+                for (int i = 0; i < values.length; i++)
+                    preemptive[i] = Boolean.parseBoolean(values[i].trim());
+            } else {
+                file = Path.of(arg);
+            }
+        }
+
+        ParameterSweep sweep = new ParameterSweep(WorkloadParser.load(file))
+                .baselines()
+                .roundRobin(quanta)
+                .priority(preemptive);
+        print(sweep.run(), System.out);
+    }
+}
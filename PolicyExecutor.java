@@ -0,0 +1,450 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+   ExecutorService that orders real tasks with the simulator's policies
+
+   java PolicyExecutor [workers]   (compares queueing delay with a ThreadPoolExecutor)
+
+   Every task carries a ProcessType and waits in that type's queue. Workers
+   are made by the ThreadFactory given, so they can be platform or virtual
+   threads, and each one takes the next task by the policy:
+
+   MULTI_LEVEL_QUEUE   as MQScheduler: REAL_TIME before SYSTEM before
+                       INTERACTIVE before BATCH, FIFO within a type.
+   FEEDBACK            as MLFQScheduler with each type as one process: the
+                       measured run time of a type's tasks is charged to its
+                       level, a type that uses up the level's quantum is
+                       demoted, and every BOOST_INTERVAL slices all types go
+                       back to level 0. The lowest level wins, ties go to the
+                       oldest waiting task.
+
+   A running task is never preempted; time slices only decide what runs next.
+   Tasks given without a type (execute(Runnable), invokeAll, ...) get the
+   default type.
+*/
+public class PolicyExecutor extends AbstractExecutorService {
+
+    public enum Policy { MULTI_LEVEL_QUEUE, FEEDBACK }
+
+    private static final ProcessType[] TYPES = ProcessType.values();
+    private static final int BOOST_INTERVAL = 20;                          // in slices, as MLFQScheduler
+    private static final int[] QUANTUM = { 4, 8, Integer.MAX_VALUE };      // in slices, per level
+
+    private static final class Entry {
+        final Runnable task;
+        final long enqueuedAt;
+
+        Entry(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final Policy policy;
+    private final int poolSize;
+    private final long sliceNanos;
+    private final ProcessType defaultType;
+    private final ThreadFactory threadFactory;
+
+    // everything below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition terminated = lock.newCondition();
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final ArrayDeque<Entry>[] queues = new ArrayDeque[TYPES.length];   // by queue index
+    private final List<Thread> workers = new ArrayList<>();
+    private int liveWorkers;
+    private boolean shutdown;
+    private boolean stopped;     // shutdownNow: workers leave without draining
+
+    private final int[] level = new int[TYPES.length];        // FEEDBACK level per type
+    private final long[] levelUsed = new long[TYPES.length];  // nanos charged at that level
+    private long lastBoost;
+
+    private final long[] busyNanos = new long[TYPES.length];
+    private final long[] completed = new long[TYPES.length];
+    private final LatencyHistogram[] queueDelay = new LatencyHistogram[TYPES.length];   // microseconds
+
+    public PolicyExecutor(int poolSize, Policy policy) {
+        this(poolSize, policy, Executors.defaultThreadFactory());
+    }
+
+    public PolicyExecutor(int poolSize, Policy policy, ThreadFactory threadFactory) {
+        this(poolSize, policy, threadFactory, TimeUnit.MILLISECONDS.toNanos(1), ProcessType.BATCH);
+    }
+
+    public PolicyExecutor(int poolSize, Policy policy, ThreadFactory threadFactory,
+                          long sliceNanos, ProcessType defaultType) {
+        if (poolSize < 1)
+            throw new IllegalArgumentException("pool size must be at least 1: " + poolSize);
+        if (sliceNanos < 1)
+            throw new IllegalArgumentException("slice must be positive: " + sliceNanos);
+        if (policy == null || threadFactory == null || defaultType == null)
+            throw new NullPointerException();
+        this.poolSize = poolSize;
+        this.policy = policy;
+        this.threadFactory = threadFactory;
+        this.sliceNanos = sliceNanos;
+        this.defaultType = defaultType;
+        for (int i = 0; i < TYPES.length; i++) {
+            queues[i] = new ArrayDeque<>();
+            queueDelay[i] = new LatencyHistogram();
+        }
+        lastBoost = System.nanoTime();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        execute(command, defaultType);
+    }
+
+    public void execute(Runnable command, ProcessType type) {
+        if (command == null || type == null)
+            throw new NullPointerException();
+        lock.lock();
+        try {
+            if (shutdown)
+                throw new RejectedExecutionException("executor has been shut down");
+            queues[type.getQueueIndex()].add(new Entry(command, System.nanoTime()));
+            // start workers lazily, one per submission, up to the pool size
+            if (workers.size() < poolSize)
+                addWorker();
+            else
+                notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Future<?> submit(Runnable task, ProcessType type) {
+        RunnableFuture<Void> future = newTaskFor(task, null);
+        execute(future, type);
+        return future;
+    }
+
+    public <T> Future<T> submit(Callable<T> task, ProcessType type) {
+        RunnableFuture<T> future = newTaskFor(task);
+        execute(future, type);
+        return future;
+    }
+
+    private void addWorker() {
+        Thread thread = threadFactory.newThread(this::work);
+        if (thread == null)
+            throw new RejectedExecutionException("thread factory did not make a worker");
+        workers.add(thread);
+        liveWorkers++;
+        thread.start();
+    }
+
+    private void work() {
+        try {
+            Entry entry;
+            int index;
+            while (true) {
+                lock.lock();
+                try {
+                    index = takeIndex();
+                    if (index == -1)
+                        return;
+                    entry = queues[index].poll();
+                    queueDelay[index].record((int) Math.min(Integer.MAX_VALUE,
+                            (System.nanoTime() - entry.enqueuedAt) / 1000));
+                } finally {
+                    lock.unlock();
+                }
+                // an interrupt left over from the previous task is not meant for this one
+                Thread.interrupted();
+
+                long start = System.nanoTime();
+                try {
+                    entry.task.run();
+                } catch (Throwable t) {
+                    // keep the worker; the failure goes where the thread's failures go
+                    Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, t);
+                } finally {
+                    charge(index, System.nanoTime() - start);
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                if (--liveWorkers == 0 && shutdown)
+                    terminated.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // queue index of the next task, waiting for one; -1 once the worker should leave
+    private int takeIndex() {
+        while (true) {
+            if (stopped)
+                return -1;
+            int index = select();
+            if (index != -1)
+                return index;
+            if (shutdown)
+                return -1;
+            notEmpty.awaitUninterruptibly();
+        }
+    }
+
+    private int select() {
+        if (policy == Policy.MULTI_LEVEL_QUEUE) {
+            for (int i = 0; i < queues.length; i++)
+                if (!queues[i].isEmpty())
+                    return i;
+            return -1;
+        }
+        boostIfDue();
+        int best = -1;
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].isEmpty())
+                continue;
+            if (best == -1 || level[i] < level[best]
+                    || (level[i] == level[best] && queues[i].peek().enqueuedAt - queues[best].peek().enqueuedAt < 0))
+                best = i;
+        }
+        return best;
+    }
+
+    private void boostIfDue() {
+        long now = System.nanoTime();
+        if (now - lastBoost < BOOST_INTERVAL * sliceNanos)
+            return;
+        lastBoost = now;
+        for (int i = 0; i < level.length; i++) {
+            level[i] = 0;
+            levelUsed[i] = 0;
+        }
+    }
+
+    private void charge(int index, long nanos) {
+        lock.lock();
+        try {
+            busyNanos[index] += nanos;
+            completed[index]++;
+            if (policy != Policy.FEEDBACK)
+                return;
+            levelUsed[index] += nanos;
+            int l = level[index];
+            if (l < QUANTUM.length - 1 && levelUsed[index] >= QUANTUM[l] * sliceNanos) {
+                level[index] = l + 1;
+                levelUsed[index] = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+            if (liveWorkers == 0)
+                terminated.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            stopped = true;
+            List<Runnable> pending = new ArrayList<>();
+            for (ArrayDeque<Entry> queue : queues) {
+                for (Entry entry : queue)
+                    pending.add(entry.task);
+                queue.clear();
+            }
+            for (Thread worker : workers)
+                worker.interrupt();
+            notEmpty.signalAll();
+            if (liveWorkers == 0)
+                terminated.signalAll();
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        lock.lock();
+        try {
+            return shutdown && liveWorkers == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(shutdown && liveWorkers == 0)) {
+                if (nanos <= 0)
+                    return false;
+                nanos = terminated.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public int getQueued(ProcessType type) {
+        lock.lock();
+        try {
+            return queues[type.getQueueIndex()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompleted(ProcessType type) {
+        lock.lock();
+        try {
+            return completed[type.getQueueIndex()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // measured run time of the type's finished tasks
+    public long getBusyNanos(ProcessType type) {
+        lock.lock();
+        try {
+            return busyNanos[type.getQueueIndex()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // copy of the time the type's tasks waited for a worker, in microseconds
+    public LatencyHistogram getQueueDelay(ProcessType type) {
+        LatencyHistogram copy = new LatencyHistogram();
+        lock.lock();
+        try {
+            copy.add(queueDelay[type.getQueueIndex()]);
+        } finally {
+            lock.unlock();
+        }
+        return copy;
+    }
+
+    // FEEDBACK level the type is at now (always 0 under MULTI_LEVEL_QUEUE)
+    public int getLevel(ProcessType type) {
+        lock.lock();
+        try {
+            return level[type.getQueueIndex()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+       mixed load: a steady backlog of BATCH work with REAL_TIME tasks dropped
+       in every millisecond. Prints how long the REAL_TIME tasks waited for a
+       worker under each executor.
+    */
+    public static void main(String[] args) throws Exception {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        System.out.println(String.format("%-28s %10s %10s %10s %10s",
+                "Executor (REAL_TIME delay)", "Count", "p50 us", "p99 us", "Max us"));
+        System.out.println("-".repeat(72));
+        for (int round = 0; round < 2; round++) {   // the first round warms up
+            LatencyHistogram fifo = mixedLoad(Executors.newFixedThreadPool(workers));
+            LatencyHistogram mq = mixedLoad(new PolicyExecutor(workers, Policy.MULTI_LEVEL_QUEUE));
+            LatencyHistogram fb = mixedLoad(new PolicyExecutor(workers, Policy.FEEDBACK));
+            if (round == 1) {
+                printDelay("ThreadPoolExecutor", fifo);
+                printDelay("PolicyExecutor MQ", mq);
+                printDelay("PolicyExecutor FEEDBACK", fb);
+            }
+        }
+        System.out.println("-".repeat(72));
+    }
+
+    private static LatencyHistogram mixedLoad(ExecutorService executor) throws InterruptedException {
+        PolicyExecutor typed = executor instanceof PolicyExecutor ? (PolicyExecutor) executor : null;
+        int urgent = 200;
+        LatencyHistogram delay = new LatencyHistogram();
+        CountDownLatch done = new CountDownLatch(urgent);
+        for (int i = 0; i < urgent; i++) {
+            for (int b = 0; b < 4; b++) {
+                Runnable batch = () -> spin(TimeUnit.MICROSECONDS.toNanos(500));
+                if (typed != null)
+                    typed.execute(batch, ProcessType.BATCH);
+                else
+                    executor.execute(batch);
+            }
+            long submitted = System.nanoTime();
+            Runnable realTime = () -> {
+                long waited = (System.nanoTime() - submitted) / 1000;
+                synchronized (delay) {
+                    delay.record((int) Math.min(Integer.MAX_VALUE, waited));
+                }
+                spin(TimeUnit.MICROSECONDS.toNanos(50));
+                done.countDown();
+            };
+            if (typed != null)
+                typed.execute(realTime, ProcessType.REAL_TIME);
+            else
+                executor.execute(realTime);
+            spin(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        done.await();
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return delay;
+    }
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() - end < 0)
+            Thread.onSpinWait();
+    }
+
+    private static void printDelay(String label, LatencyHistogram h) {
+        System.out.println(String.format("%-28s %10d %10d %10d %10d",
+                label, h.getCount(), h.getPercentile(50), h.getPercentile(99), h.getMax()));
+    }
+}
@@ -1,113 +1,121 @@
-import java.util.*;
+import java.util.BitSet;
+import java.util.LinkedList;
 
 public class PriorityScheduler extends Scheduler {
 
-    private LinkedList<Process> processes;
-    private List<Process> finishedProcesses;
+    private ProcessTable table;
+    private int[] processes;    // rows sorted by arrival
     private int currentTime = 0;
     private final int contextSwitch = 2;
     private int busyTime = 0;
     private int idleTime = 0;
     private int ctxSwitchCount = 0;
     private boolean isPreemptive;
+    // per-process state, indexed like processes
+    private BitSet arrived;
+    private BitSet terminated;
 
     public PriorityScheduler(LinkedList<Process> processes, boolean isPreemptive) {
+        this(ProcessTable.of(processes), isPreemptive);
+    }
+
+    public PriorityScheduler(ProcessTable table, boolean isPreemptive) {
 
-        this.processes = processes;
-        this.finishedProcesses = new LinkedList<>();
+        this.table = table;
         this.isPreemptive = isPreemptive;
 
-        processes.sort(Comparator.comparingInt(Process::getArrivalTime));
+        this.processes = table.rowsByArrival();
     }
 
     @Override
     public void run() {
-        System.out.println("╔════════════════════════════════════════════════════════╗");
+        trace.message("╔════════════════════════════════════════════════════════╗");
         if (isPreemptive)
-            System.out.println("║        Priority Scheduling (Preemptive)               ║");
+            trace.message("║        Priority Scheduling (Preemptive)               ║");
         else
-            System.out.println("║      Priority Scheduling (Non-Preemptive)             ║");
-        System.out.println("╚════════════════════════════════════════════════════════╝\n");
-
-        LinkedList<Process> readyQueue = new LinkedList<>();
-        Process currentProcess = null;
-
-        while (finishedProcesses.size() < processes.size()) {
+            trace.message("║      Priority Scheduling (Non-Preemptive)             ║");
+        trace.message("╚════════════════════════════════════════════════════════╝\n");
+
+        int n = processes.length;
+
+        // heap entries are positions in processes, which is sorted by arrival,
+        // so the next arrival is always at the cursor and a lower position
+        // also means it was admitted earlier, which is how ties on priority
+        // were resolved
+        IndexedMinHeap readyQueue = new IndexedMinHeap(n, (a, b) -> {
+            int byPriority = Integer.compare(table.getPriority(processes[a]), table.getPriority(processes[b]));
+            return byPriority != 0 ? byPriority : Integer.compare(a, b);
+        });
+        arrived = new BitSet(n);
+        terminated = new BitSet(n);
+        int cursor = 0;
+        int current = -1;
+        int finished = 0;
+
+        while (finished < n) {
 
             // add newly arrived processes
-            for (Process p : processes) {
-                if (p.getArrivalTime() <= currentTime &&
-                        p.getRemainingTime() > 0 &&
-                        !readyQueue.contains(p) &&
-                        !finishedProcesses.contains(p)) {
-                    readyQueue.add(p);
-                }
+            while (cursor < n && table.getArrivalTime(processes[cursor]) <= currentTime) {
+                arrived.set(cursor);
+                readyQueue.add(cursor++);
             }
 
             if (readyQueue.isEmpty()) {
-                idleTime++;
-                currentTime++;
+                // jump straight to the next arrival
+                int next = table.getArrivalTime(processes[cursor]);
+                idleTime += next - currentTime;
+                currentTime = next;
                 continue;
             }
 
-            // pick highest priority
-            Process nextProcess = readyQueue.stream()
-                    .min(Comparator.comparingInt(Process::getPriority))
-                    .get();
+            // pick highest priority; a running process only loses the CPU when
+            // it finishes or a better one arrives, and the latter can only
+            // happen in preemptive mode since otherwise it runs to completion
+            int next = readyQueue.peek();
+            int nextProcess = processes[next];
 
             // Context switch
-            if (currentProcess != nextProcess) {
-                if(currentProcess != null){
-                    
-                if (!isPreemptive && currentProcess.getRemainingTime() > 0) {
-                    nextProcess = currentProcess;  // ignore new higher priority
-                } else {
+            if (current != next) {
+                if (current != -1) {
                     ctxSwitchCount++;
+                    trace.contextSwitch(currentTime, currentTime + contextSwitch);
                     currentTime += contextSwitch;
-                    currentProcess = nextProcess;
-                }
-                }
-                else{
-                    currentProcess = nextProcess;
                 }
+                current = next;
             }
 
             // first time execution
-            if (nextProcess.getStartedAt() == -1) {
-                nextProcess.setStartedAt(currentTime);
-                nextProcess.setResponseTime(currentTime - nextProcess.getArrivalTime());
+            if (table.getStartedAt(nextProcess) == -1) {
+                table.setStartedAt(nextProcess, currentTime);
+                table.setResponseTime(nextProcess, currentTime - table.getArrivalTime(nextProcess));
             }
 
-            if (isPreemptive) {
-
-                nextProcess.setRemainingTime(nextProcess.getRemainingTime() - 1);
-                busyTime++;
-                currentTime++;
-
-                if (nextProcess.getRemainingTime() == 0) {
-                    nextProcess.setFinishedAt(currentTime);
-                    nextProcess.calculateAllTimes();
-                    finishedProcesses.add(nextProcess);
-                    readyQueue.remove(nextProcess);
-                }
-
-            } else {
-
-                int runTime = nextProcess.getRemainingTime();
-                currentTime += runTime;
-                busyTime += runTime;
-
-                nextProcess.setRemainingTime(0);
-                nextProcess.setFinishedAt(currentTime);
-                nextProcess.calculateAllTimes();
-                finishedProcesses.add(nextProcess);
-                readyQueue.remove(nextProcess);
+            int runTime = table.getRemainingTime(nextProcess);
+            if (isPreemptive && cursor < n) {
+                // run until the next arrival gets a chance to preempt
+                runTime = Math.min(runTime, table.getArrivalTime(processes[cursor]) - currentTime);
+                runTime = Math.max(runTime, 1);
+            }
+            currentTime += runTime;
+            busyTime += runTime;
+            trace.execution(currentTime - runTime, currentTime, table, nextProcess, null);
+            table.setRemainingTime(nextProcess, table.getRemainingTime(nextProcess) - runTime);
+
+            if (table.getRemainingTime(nextProcess) <= 0) {
+                table.setFinishedAt(nextProcess, currentTime);
+                table.calculateAllTimes(nextProcess);
+                recordFinished(table, nextProcess);
+                finished++;
+                readyQueue.poll();
+                terminated.set(next);
             }
 
-            printProcessStatuses(readyQueue);
+            printProcessStatuses();
         }
 
-        printStatsDetails();
+        summarize(busyTime, idleTime, ctxSwitchCount * contextSwitch);
+        if (reporting)
+            printStatsDetails();
     }
 
     // private void printProcess(Process currentProcess) {
@@ -138,29 +146,32 @@ public class PriorityScheduler extends Scheduler {
     //     }
     // }
 
-    private void printProcessStatuses(LinkedList<Process> readyQueue) {
-        System.out.println("[Time " + currentTime + "] Status:");
-        for (Process p : processes) {
+    private void printProcessStatuses() {
+        if (!trace.isMessageEnabled())
+            return;
+        trace.message("[Time " + currentTime + "] Status:");
+        for (int i = 0; i < processes.length; i++) {
             String status;
-            if (finishedProcesses.contains(p)) status = "terminated";
-            else if (readyQueue.contains(p)) status = "ready";
+            if (terminated.get(i)) status = "terminated";
+            else if (arrived.get(i)) status = "ready";
             else status = "waiting";
 
-            System.out.println(String.format("  %s : %s", p.getName(), status));
+            trace.message(String.format("  %s : %s", table.getName(processes[i]), status));
         }
-        System.out.println();
+        trace.message("");
     }
 
     private void printStatsDetails() {
+        trace.flush();
 
 
-        System.out.println("╔════════════════════════════════════════════════════════╗");
+        report.println("╔════════════════════════════════════════════════════════╗");
         if (isPreemptive)
-            System.out.println("║        Priority Scheduling (Preemptive)               ║");
+            report.println("║        Priority Scheduling (Preemptive)               ║");
         else
-            System.out.println("║      Priority Scheduling (Non-Preemptive)             ║");
-        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+            report.println("║      Priority Scheduling (Non-Preemptive)             ║");
+        report.println("╚════════════════════════════════════════════════════════╝\n");
 
-        super.printStatsDetials(finishedProcesses, busyTime, idleTime,ctxSwitchCount * contextSwitch);
+        super.printStatsDetials(table, busyTime, idleTime,ctxSwitchCount * contextSwitch);
     }
 }
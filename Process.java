@@ -1,135 +1,220 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a view onto one row of a ProcessTable; a standalone process keeps its own
+// fields until ProcessTable.of copies it into a table and binds it to its row
 public class Process {
-    private static int counter = 1;
+    // ids for processes made without one; SimulationContext.newProcess numbers per run instead
+    private static final AtomicInteger counter = new AtomicInteger(1);
+    private ProcessTable table;     // null while unbound
+    private int row;
+
+    // the process while unbound
+    private String name;
     private int processId;
     private int arrivalTime;
     private int burstTime;
     private int remainingTime;
-    private int turnaroundTime;
-    private int waitingTime;
     private int priority;
-    private String name;
-    private final ProcessType type;
-    // New fields from second class
+    private ProcessType type;
     private int startedAt = -1;
-    private int finishedAt;
+    private int finishedAt = -1;
     private int responseTime = -1;
-
-    public int currentQueue = 0;
-    public int quantumUsed = 0;
+    private int waitingTime;
+    private int turnaroundTime;
+    private int deadline;
+    private int period;
 
     public Process(int arrivalTime, int burstTime, ProcessType type) {
-        processId = counter++;
-        this.arrivalTime = arrivalTime;
-        this.finishedAt = -1;
-        this.burstTime = burstTime;
-        this.remainingTime = burstTime;
-        this.type = type;
-
-        this.turnaroundTime = 0;        
-        this.startedAt = 0;
-        this.waitingTime = 0;
-        this.responseTime = -1;
+        this(null, counter.getAndIncrement(), arrivalTime, burstTime, 0, type, 0);
     }
 
+    // keeps processId as given; the global counter still advances, so ids made without one stay as before
     public Process(String name, int processId ,int arrivalTime, int burstTime, int priority, ProcessType processType) {
-        processId = counter++;
+        this(name, processId, arrivalTime, burstTime, priority, processType, -1);
+        counter.getAndIncrement();
+    }
+
+    private Process(String name, int processId, int arrivalTime, int burstTime, int priority, ProcessType type, int startedAt) {
         this.name = name;
         this.processId = processId;
         this.arrivalTime = arrivalTime;
         this.burstTime = burstTime;
         this.remainingTime = burstTime;
         this.priority = priority;
-        this.finishedAt = -1;
-        this.turnaroundTime = 0;
-        this.waitingTime = 0;
-        this.type = processType;
+        this.type = type;
+        this.startedAt = startedAt;
+    }
+
+    Process(ProcessTable table, int row) {
+        this.table = table;
+        this.row = row;
+    }
+
+    // a standalone process with the given id, leaving the global counter alone
+    static Process unbound(String name, int processId, int arrivalTime, int burstTime, int priority, ProcessType type) {
+        return new Process(name, processId, arrivalTime, burstTime, priority, type, -1);
+    }
+
+    ProcessTable table() {
+        return table;
+    }
+
+    int row() {
+        return row;
+    }
+
+    void bind(ProcessTable table, int row) {
+        this.table = table;
+        this.row = row;
+        this.name = null;
+        this.type = null;
+    }
+
+    // appends the unbound fields as a new row of table
+    int addTo(ProcessTable table) {
+        int r = table.add(name, processId, arrivalTime, burstTime, priority, type);
+        table.setRemainingTime(r, remainingTime);
+        table.setStartedAt(r, startedAt);
+        table.setFinishedAt(r, finishedAt);
+        table.setResponseTime(r, responseTime);
+        table.setWaitingTime(r, waitingTime);
+        table.setTurnaroundTime(r, turnaroundTime);
+        table.setDeadline(r, deadline);
+        table.setPeriod(r, period);
+        return r;
     }
 
     // Getters
     public int getProcessId() {
-        return processId;
+        return table == null ? processId : table.getProcessId(row);
     }
 
     public String getName() {
-        return name;
+        return table == null ? name : table.getName(row);
     }
 
     public int getArrivalTime() {
-        return arrivalTime;
+        return table == null ? arrivalTime : table.getArrivalTime(row);
     }
 
     public int getBurstTime() {
-        return burstTime;
+        return table == null ? burstTime : table.getBurstTime(row);
     }
 
     public int getRemainingTime() {
-        return remainingTime;
+        return table == null ? remainingTime : table.getRemainingTime(row);
     }
 
     public int getTurnaroundTime() {
-        return turnaroundTime;
+        return table == null ? turnaroundTime : table.getTurnaroundTime(row);
     }
 
     public int getWaitingTime() {
-        return waitingTime;
+        return table == null ? waitingTime : table.getWaitingTime(row);
     }
 
     public int getPriority() {
-        return priority;
+        return table == null ? priority : table.getPriority(row);
+    }
+
+    public int getDeadline() {
+        return table == null ? deadline : table.getDeadline(row);
+    }
+
+    public int getPeriod() {
+        return table == null ? period : table.getPeriod(row);
     }
 
     public int getStartedAt() {
-        return startedAt;
+        return table == null ? startedAt : table.getStartedAt(row);
     }
 
     public int getResponseTime() {
-        return responseTime;
+        return table == null ? responseTime : table.getResponseTime(row);
     }
 
      public ProcessType getType() {
-        return type;
+        return table == null ? type : table.getType(row);
     }
 
     public int getFinishedAt() {
-        return finishedAt;
+        return table == null ? finishedAt : table.getFinishedAt(row);
     }
 
     // Setters
     public void setRemainingTime(int remainingTime) {
-        this.remainingTime = remainingTime;
+        if (table == null)
+            this.remainingTime = remainingTime;
+        else
+            table.setRemainingTime(row, remainingTime);
     }
 
     public void setTurnaroundTime(int turnaroundTime) {
-        this.turnaroundTime = turnaroundTime;
+        if (table == null)
+            this.turnaroundTime = turnaroundTime;
+        else
+            table.setTurnaroundTime(row, turnaroundTime);
     }
 
     public void setWaitingTime(int waitingTime) {
-        this.waitingTime = waitingTime;
+        if (table == null)
+            this.waitingTime = waitingTime;
+        else
+            table.setWaitingTime(row, waitingTime);
     }
 
     public void setFinishedAt(int finishedAt) {
-        this.finishedAt = finishedAt;
+        if (table == null)
+            this.finishedAt = finishedAt;
+        else
+            table.setFinishedAt(row, finishedAt);
     }
 
     public void setResponseTime(int responseTime) {
-        this.responseTime = responseTime;
+        if (table == null)
+            this.responseTime = responseTime;
+        else
+            table.setResponseTime(row, responseTime);
     }
 
     public void setStartedAt(int startedAt) {
-        this.startedAt = startedAt;
+        if (table == null)
+            this.startedAt = startedAt;
+        else
+            table.setStartedAt(row, startedAt);
+    }
+
+    public void setDeadline(int deadline) {
+        if (table != null) {
+            table.setDeadline(row, deadline);
+            return;
+        }
+        if (deadline < 0)
+            throw new IllegalArgumentException("negative deadline " + deadline);
+        this.deadline = deadline;
+    }
+
+    public void setPeriod(int period) {
+        if (table != null) {
+            table.setPeriod(row, period);
+            return;
+        }
+        if (period < 0)
+            throw new IllegalArgumentException("negative period " + period);
+        this.period = period;
     }
 
-    
+
     public void decrement() {
-        remainingTime--;
+        setRemainingTime(getRemainingTime() - 1);
     }
 
     public boolean end() {
-        return remainingTime <= 0;
+        return getRemainingTime() <= 0;
     }
 
     public boolean isAvailable(int currentTime) {
-        return arrivalTime <= currentTime && remainingTime > 0;
+        return getArrivalTime() <= currentTime && getRemainingTime() > 0;
     }
 
     public void calculateAllTimes() {
@@ -138,60 +223,34 @@ public class Process {
     }
 
      public void calculateTurnaroundTime() {
-        this.turnaroundTime = this.finishedAt - this.arrivalTime;
+        setTurnaroundTime(getFinishedAt() - getArrivalTime());
     }
 
     public void calculateWaitingTime() {
-        this.waitingTime = this.turnaroundTime - this.burstTime;
-    }
-    
-    public boolean isQuantumExhausted() {
-        if (currentQueue == 0)
-            return quantumUsed >= 4;
-        if (currentQueue == 1)
-            return quantumUsed >= 8;
-        return false;
+        setWaitingTime(getTurnaroundTime() - getBurstTime());
     }
 
     public boolean execute(int currentTime) {
-        if (this.responseTime == -1) {
-            this.responseTime = currentTime - this.arrivalTime;
-        }
-        this.remainingTime--;
-        quantumUsed++;
-        return this.remainingTime == 0;
-    }
-
-    public void resetQuantum() {
-        quantumUsed = 0;
-    }
-
-    public void boost() {
-        currentQueue = 0;
-        resetQuantum();
-    }
-
-    public void demote() {
-        if (currentQueue < 2) {
-            currentQueue++;
-            resetQuantum();
-        }
+        if (table != null)
+            return table.execute(row, currentTime);
+        if (responseTime == -1)
+            responseTime = currentTime - arrivalTime;
+        remainingTime--;
+        return remainingTime == 0;
     }
 
     public String trace() {
-        return String.format(
-            "Process [id=%-3d, name=%-6s, arrival=%-3d, burst=%-3d]",
-            processId, name, arrivalTime, burstTime
-        );
+        if (table != null)
+            return table.trace(row);
+        return ProcessTable.trace(processId, name, arrivalTime, burstTime);
     }
 
     @Override
     public String toString() {
-        return String.format(
-            "[id=%-3d, name=%-6s, arrival=%-3d, burst=%-3d, start=%-3d, finish=%-3d, wait=%-3d, TAT=%-3d, resp=%-3d, processType=%-10s]",
-            processId, name, arrivalTime, burstTime, startedAt, finishedAt,
-            waitingTime, turnaroundTime, responseTime, type.toString()
-        );
+        if (table != null)
+            return table.toString(row);
+        return ProcessTable.toString(processId, name, arrivalTime, burstTime, startedAt, finishedAt,
+                waitingTime, turnaroundTime, responseTime, type);
     }
 
 }
@@ -0,0 +1,392 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/*
+   struct-of-arrays storage for processes: one primitive column per field and
+   a process is just a row index, so millions of jobs cost a few ints each
+   instead of an object plus a list node. Process is a view onto one row.
+*/
+public class ProcessTable {
+    private static final ProcessType[] TYPES = ProcessType.values();
+
+    private int size;
+    private int[] processId;
+    private int[] arrivalTime;
+    private int[] burstTime;
+    private int[] remainingTime;
+    private int[] priority;
+    private int[] type;             // ProcessType ordinal
+    private int[] startedAt;
+    private int[] finishedAt;
+    private int[] responseTime;
+    private int[] waitingTime;
+    private int[] turnaroundTime;
+    // real-time parameters, 0 when not set
+    private int[] deadline;         // relative to the release
+    private int[] period;           // a job released every period from the arrival on
+    private String[] names;         // allocated on the first named row
+
+    public ProcessTable() {
+        this(16);
+    }
+
+    public ProcessTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        processId = new int[capacity];
+        arrivalTime = new int[capacity];
+        burstTime = new int[capacity];
+        remainingTime = new int[capacity];
+        priority = new int[capacity];
+        type = new int[capacity];
+        startedAt = new int[capacity];
+        finishedAt = new int[capacity];
+        responseTime = new int[capacity];
+        waitingTime = new int[capacity];
+        turnaroundTime = new int[capacity];
+        deadline = new int[capacity];
+        period = new int[capacity];
+    }
+
+    // copies the processes into a new table and re-points every view at its
+    // row there, so callers holding the Process objects see the results
+    public static ProcessTable of(Collection<Process> processes) {
+        ProcessTable table = new ProcessTable(processes.size());
+        for (Process p : processes) {
+            int row = p.table() == null ? p.addTo(table) : table.copyRow(p.table(), p.row());
+            p.bind(table, row);
+        }
+        return table;
+    }
+
+    // independent deep copy, e.g. a fresh workload for every run of a scheduler
+    public ProcessTable copy() {
+        return copy(0, size);
+    }
+
+    // rows from..to-1 as a new table, renumbered from 0
+    public ProcessTable copy(int from, int to) {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("rows " + from + ".." + to + " of " + size);
+        int n = to - from;
+        ProcessTable copy = new ProcessTable(n);
+        copy.size = n;
+        System.arraycopy(processId, from, copy.processId, 0, n);
+        System.arraycopy(arrivalTime, from, copy.arrivalTime, 0, n);
+        System.arraycopy(burstTime, from, copy.burstTime, 0, n);
+        System.arraycopy(remainingTime, from, copy.remainingTime, 0, n);
+        System.arraycopy(priority, from, copy.priority, 0, n);
+        System.arraycopy(type, from, copy.type, 0, n);
+        System.arraycopy(startedAt, from, copy.startedAt, 0, n);
+        System.arraycopy(finishedAt, from, copy.finishedAt, 0, n);
+        System.arraycopy(responseTime, from, copy.responseTime, 0, n);
+        System.arraycopy(waitingTime, from, copy.waitingTime, 0, n);
+        System.arraycopy(turnaroundTime, from, copy.turnaroundTime, 0, n);
+        System.arraycopy(deadline, from, copy.deadline, 0, n);
+        System.arraycopy(period, from, copy.period, 0, n);
+        if (names != null)
+            copy.names = Arrays.copyOfRange(names, from, from + copy.processId.length);
+        return copy;
+    }
+
+    // appends every row of other, in order
+    public void addAll(ProcessTable other) {
+        ensureCapacity(size + other.size);
+        for (int r = 0; r < other.size; r++)
+            copyRow(other, r);
+    }
+
+    // every column of every row, for checkpoints; readFrom gives back an equal table
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int[] column : columns())
+            Checkpoint.writeInts(out, column, size);
+        out.writeBoolean(names != null);
+        if (names != null) {
+            for (int r = 0; r < size; r++) {
+                out.writeBoolean(names[r] != null);
+                if (names[r] != null)
+                    out.writeUTF(names[r]);
+            }
+        }
+    }
+
+    public static ProcessTable readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0)
+            throw new IOException("corrupt process table: " + size + " rows");
+        ProcessTable table = new ProcessTable(size);
+        table.size = size;
+        for (int[] column : table.columns())
+            Checkpoint.readInts(in, column, size);
+        if (in.readBoolean()) {
+            table.names = new String[table.processId.length];
+            for (int r = 0; r < size; r++)
+                if (in.readBoolean())
+                    table.names[r] = in.readUTF();
+        }
+        return table;
+    }
+
+    private int[][] columns() {
+        return new int[][] { processId, arrivalTime, burstTime, remainingTime, priority, type, startedAt,
+                finishedAt, responseTime, waitingTime, turnaroundTime, deadline, period };
+    }
+
+    public int add(String name,int processId, int arrivalTime, int burstTime, int priority, ProcessType processType) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        this.processId[row] = processId;
+        this.arrivalTime[row] = arrivalTime;
+        this.burstTime[row] = burstTime;
+        this.remainingTime[row] = burstTime;
+        this.priority[row] = priority;
+        this.type[row] = processType.ordinal();
+        this.startedAt[row] = -1;
+        this.finishedAt[row] = -1;
+        this.responseTime[row] = -1;
+        this.waitingTime[row] = 0;
+        this.turnaroundTime[row] = 0;
+        this.deadline[row] = 0;
+        this.period[row] = 0;
+        setName(row, name);
+        return row;
+    }
+
+    private int copyRow(ProcessTable from, int r) {
+        int row = add(from.getName(r), from.processId[r], from.arrivalTime[r], from.burstTime[r],
+                from.priority[r], TYPES[from.type[r]]);
+        remainingTime[row] = from.remainingTime[r];
+        startedAt[row] = from.startedAt[r];
+        finishedAt[row] = from.finishedAt[r];
+        responseTime[row] = from.responseTime[r];
+        waitingTime[row] = from.waitingTime[r];
+        turnaroundTime[row] = from.turnaroundTime[r];
+        deadline[row] = from.deadline[r];
+        period[row] = from.period[r];
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Process view(int row) {
+        checkRow(row);
+        return new Process(this, row);
+    }
+
+    // rows in the given order; the sort is stable so equal rows keep table order
+    public int[] sortedRows(IntComparator order) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++)
+            rows[i] = i;
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int lo = 0; lo < size - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, size);
+                if (order.compare(rows[mid - 1], rows[mid]) <= 0)
+                    continue;   // already in order
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi)
+                    buffer[k++] = order.compare(rows[j], rows[i]) < 0 ? rows[j++] : rows[i++];
+                while (i < mid) buffer[k++] = rows[i++];
+                while (j < hi) buffer[k++] = rows[j++];
+                System.arraycopy(buffer, lo, rows, lo, hi - lo);
+            }
+        }
+        return rows;
+    }
+
+    public int[] rowsByArrival() {
+        return sortedRows((a, b) -> Integer.compare(arrivalTime[a], arrivalTime[b]));
+    }
+
+    public int[] rowsByProcessId() {
+        return sortedRows((a, b) -> Integer.compare(processId[a], processId[b]));
+    }
+
+    // Getters
+    public int getProcessId(int row) {
+        return processId[row];
+    }
+
+    public String getName(int row) {
+        return names == null ? null : names[row];
+    }
+
+    public int getArrivalTime(int row) {
+        return arrivalTime[row];
+    }
+
+    public int getBurstTime(int row) {
+        return burstTime[row];
+    }
+
+    public int getRemainingTime(int row) {
+        return remainingTime[row];
+    }
+
+    public int getTurnaroundTime(int row) {
+        return turnaroundTime[row];
+    }
+
+    public int getWaitingTime(int row) {
+        return waitingTime[row];
+    }
+
+    public int getPriority(int row) {
+        return priority[row];
+    }
+
+    public int getStartedAt(int row) {
+        return startedAt[row];
+    }
+
+    public int getResponseTime(int row) {
+        return responseTime[row];
+    }
+
+    public ProcessType getType(int row) {
+        return TYPES[type[row]];
+    }
+
+    public int getDeadline(int row) {
+        return deadline[row];
+    }
+
+    public int getPeriod(int row) {
+        return period[row];
+    }
+
+    public int getFinishedAt(int row) {
+        return finishedAt[row];
+    }
+
+    // Setters
+    public void setName(int row, String name) {
+        if (name == null && names == null)
+            return;
+        if (names == null)
+            names = new String[processId.length];
+        names[row] = name;
+    }
+
+    public void setRemainingTime(int row, int remainingTime) {
+        this.remainingTime[row] = remainingTime;
+    }
+
+    public void setTurnaroundTime(int row, int turnaroundTime) {
+        this.turnaroundTime[row] = turnaroundTime;
+    }
+
+    public void setWaitingTime(int row, int waitingTime) {
+        this.waitingTime[row] = waitingTime;
+    }
+
+    public void setFinishedAt(int row, int finishedAt) {
+        this.finishedAt[row] = finishedAt;
+    }
+
+    public void setResponseTime(int row, int responseTime) {
+        this.responseTime[row] = responseTime;
+    }
+
+    // relative deadline of every job of the row, 0 for none
+    public void setDeadline(int row, int deadline) {
+        if (deadline < 0)
+            throw new IllegalArgumentException("negative deadline " + deadline);
+        this.deadline[row] = deadline;
+    }
+
+    // 0 makes the row a single job at its arrival
+    public void setPeriod(int row, int period) {
+        if (period < 0)
+            throw new IllegalArgumentException("negative period " + period);
+        this.period[row] = period;
+    }
+
+    public void setStartedAt(int row, int startedAt) {
+        this.startedAt[row] = startedAt;
+    }
+
+    public void decrement(int row) {
+        remainingTime[row]--;
+    }
+
+    public boolean end(int row) {
+        return remainingTime[row] <= 0;
+    }
+
+    public boolean isFinished(int row) {
+        return finishedAt[row] != -1 && remainingTime[row] <= 0;
+    }
+
+    public void calculateAllTimes(int row) {
+        turnaroundTime[row] = finishedAt[row] - arrivalTime[row];
+        waitingTime[row] = turnaroundTime[row] - burstTime[row];
+    }
+
+    public boolean execute(int row, int currentTime) {
+        if (responseTime[row] == -1) {
+            responseTime[row] = currentTime - arrivalTime[row];
+        }
+        remainingTime[row]--;
+        return remainingTime[row] == 0;
+    }
+
+    public String trace(int row) {
+        return trace(processId[row], getName(row), arrivalTime[row], burstTime[row]);
+    }
+
+    public String toString(int row) {
+        return toString(processId[row], getName(row), arrivalTime[row], burstTime[row], startedAt[row], finishedAt[row],
+                waitingTime[row], turnaroundTime[row], responseTime[row], getType(row));
+    }
+
+    // the formats of trace(row) and toString(row), shared with processes not in a table yet
+    static String trace(int processId, String name, int arrivalTime, int burstTime) {
+        return String.format(
+            "Process [id=%-3d, name=%-6s, arrival=%-3d, burst=%-3d]",
+            processId, name, arrivalTime, burstTime
+        );
+    }
+
+    static String toString(int processId, String name, int arrivalTime, int burstTime, int startedAt, int finishedAt,
+                           int waitingTime, int turnaroundTime, int responseTime, ProcessType type) {
+        return String.format(
+            "[id=%-3d, name=%-6s, arrival=%-3d, burst=%-3d, start=%-3d, finish=%-3d, wait=%-3d, TAT=%-3d, resp=%-3d, processType=%-10s]",
+            processId, name, arrivalTime, burstTime, startedAt, finishedAt,
+            waitingTime, turnaroundTime, responseTime, type.toString()
+        );
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= processId.length)
+            return;
+        int grown = Math.max(capacity, processId.length + (processId.length >> 1));
+        processId = Arrays.copyOf(processId, grown);
+        arrivalTime = Arrays.copyOf(arrivalTime, grown);
+        burstTime = Arrays.copyOf(burstTime, grown);
+        remainingTime = Arrays.copyOf(remainingTime, grown);
+        priority = Arrays.copyOf(priority, grown);
+        type = Arrays.copyOf(type, grown);
+        startedAt = Arrays.copyOf(startedAt, grown);
+        finishedAt = Arrays.copyOf(finishedAt, grown);
+        responseTime = Arrays.copyOf(responseTime, grown);
+        waitingTime = Arrays.copyOf(waitingTime, grown);
+        turnaroundTime = Arrays.copyOf(turnaroundTime, grown);
+        deadline = Arrays.copyOf(deadline, grown);
+        period = Arrays.copyOf(period, grown);
+        if (names != null)
+            names = Arrays.copyOf(names, grown);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+    }
+}
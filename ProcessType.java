@@ -1,3 +1,5 @@
+import java.nio.charset.StandardCharsets;
+
 public enum ProcessType {
    REAL_TIME(0),
    SYSTEM(1),
@@ -26,6 +28,39 @@ public enum ProcessType {
       };
    }
 
+   // same spellings as from(String), matched on raw ASCII bytes without building a String
+   public static ProcessType from(byte[] b, int off, int len) {
+      switch (len) {
+         case 5:
+            if (matches(b, off, "BATCH")) return BATCH;
+            break;
+         case 6:
+            if (matches(b, off, "SYSTEM")) return SYSTEM;
+            break;
+         case 8:
+            if (matches(b, off, "REALTIME")) return REAL_TIME;
+            break;
+         case 9:
+            if (matches(b, off, "REAL-TIME") || matches(b, off, "REAL_TIME")) return REAL_TIME;
+            break;
+         case 11:
+            if (matches(b, off, "INTERACTIVE")) return INTERACTIVE;
+            break;
+         default:
+            break;
+      }
+      throw new IllegalArgumentException("Unknown type: " + new String(b, off, len, StandardCharsets.US_ASCII));
+   }
+
+   private static boolean matches(byte[] b, int off, String upper) {
+      for (int i = 0; i < upper.length(); i++) {
+         int c = b[off + i];
+         if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+         if (c != upper.charAt(i)) return false;
+      }
+      return true;
+   }
+
     @Override
     public String toString() {
         return name().toUpperCase();
@@ -1,16 +1,11 @@
-import java.util.Comparator;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 class RoundRobinScheduler extends  Scheduler{
-    private Queue<Process> readyQueue;
+    private IntQueue readyQueue;
     private int timeQuantum = -1;
-    private LinkedList<Process> processes;
-    private List<Process> finishedProcesses;
-    private Process currentProcess;
-    private Process previousProcess;
+    private ProcessTable table;
+    private int currentProcess = -1;
+    private int previousProcess = -1;
     // context switch and CPU accounting
     private int contextSwitch = 2;
     private int ctxSwitchTime = 0;
@@ -18,54 +13,67 @@ class RoundRobinScheduler extends  Scheduler{
     private int idleTime = 0; // time CPU was idle
     
     public RoundRobinScheduler(LinkedList<Process> rawProcesses, int timeQuantum) {
-        this.readyQueue = new LinkedList<>();
+        this(ProcessTable.of(rawProcesses), timeQuantum);
+    }
+
+    public RoundRobinScheduler(ProcessTable table, int timeQuantum) {
+        this.readyQueue = new IntQueue();
         this.timeQuantum = timeQuantum;
-        this.processes = rawProcesses;
-        this.finishedProcesses = new LinkedList<>();
+        this.table = table;
     }
     
     public void run() {
         
-        System.out.println("╔════════════════════════════════════════════════╗");
-        System.out.println("║      Round Robin Scheduler Simulation          ║");
-        System.out.println("╚════════════════════════════════════════════════╝\n");
+        trace.message("╔════════════════════════════════════════════════╗");
+        trace.message("║      Round Robin Scheduler Simulation          ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
 
-        // Use a priority queue for future arrivals (ordered by arrival time then id)
-        PriorityQueue<Process> arrivals = new PriorityQueue<>(
-            Comparator.comparingInt(Process::getArrivalTime)
-                      .thenComparingInt(Process::getProcessId)
-        );
-        arrivals.addAll(processes);
+        // future arrivals ordered by arrival time then id, consumed through a cursor
+        int[] arrivals = table.sortedRows((a, b) -> {
+            int c = Integer.compare(table.getArrivalTime(a), table.getArrivalTime(b));
+            return c != 0 ? c : Integer.compare(table.getProcessId(a), table.getProcessId(b));
+        });
+        int next = 0;
 
         int currentTime = 0;
         int completedProcesses = 0;
 
         // move initially available processes (arrival time <= 0)
-        while (!arrivals.isEmpty() && arrivals.peek().getArrivalTime() <= currentTime) {
-            readyQueue.add(arrivals.poll());
+        while (next < arrivals.length && table.getArrivalTime(arrivals[next]) <= currentTime) {
+            readyQueue.add(arrivals[next++]);
         }
         
-        while (completedProcesses < processes.size()) {
+        int sinceCheck = Integer.MAX_VALUE;     // dispatches since the last fast-forward attempt
+
+        while (completedProcesses < table.size()) {
             if (!readyQueue.isEmpty()) {
-                Process proc = readyQueue.poll();
+                // at most one attempt per round keeps the O(k) check amortized O(1)
+                if (sinceCheck >= readyQueue.size() && !trace.isEnabled()) {
+                    sinceCheck = 0;
+                    int nextArrival = next < arrivals.length ? table.getArrivalTime(arrivals[next]) : Integer.MAX_VALUE;
+                    currentTime = fastForward(currentTime, nextArrival);
+                }
+                sinceCheck++;
+
+                int proc = readyQueue.poll();
                 previousProcess = currentProcess;
                 currentProcess = proc;
 
                 // context switch if switching between processes
-                if (previousProcess != null && currentProcess != null && previousProcess.getProcessId() != currentProcess.getProcessId()) {
+                if (previousProcess != -1 && table.getProcessId(previousProcess) != table.getProcessId(currentProcess)) {
                     printContextSwitch(currentTime);
                     currentTime += contextSwitch;
                     ctxSwitchTime += contextSwitch;
                 }
 
-                if (proc.getResponseTime() == -1) {
-                    proc.setStartedAt(currentTime);
-                    proc.setResponseTime(currentTime - proc.getArrivalTime());
+                if (table.getResponseTime(proc) == -1) {
+                    table.setStartedAt(proc, currentTime);
+                    table.setResponseTime(proc, currentTime - table.getArrivalTime(proc));
                 }
 
-                int execTime = Math.min(timeQuantum, proc.getRemainingTime());
+                int execTime = Math.min(timeQuantum, table.getRemainingTime(proc));
                 int start = currentTime;
-                proc.setRemainingTime(proc.getRemainingTime() - execTime);
+                table.setRemainingTime(proc, table.getRemainingTime(proc) - execTime);
                 currentTime += execTime;
                 busyTime += execTime;
 
@@ -74,16 +82,16 @@ class RoundRobinScheduler extends  Scheduler{
                 // try { Thread.sleep(500); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
 
                 // move newly arrived processes into ready queue
-                while (!arrivals.isEmpty() && arrivals.peek().getArrivalTime() <= currentTime) {
-                    readyQueue.add(arrivals.poll());
+                while (next < arrivals.length && table.getArrivalTime(arrivals[next]) <= currentTime) {
+                    readyQueue.add(arrivals[next++]);
                 }
 
-                if (proc.getRemainingTime() > 0) {
+                if (table.getRemainingTime(proc) > 0) {
                     readyQueue.add(proc);
                 } else {
-                    proc.setFinishedAt(currentTime);
-                    proc.calculateAllTimes();
-                    finishedProcesses.add(proc);
+                    table.setFinishedAt(proc, currentTime);
+                    table.calculateAllTimes(proc);
+                    recordFinished(table, proc);
                     completedProcesses++;
                     // System.out.printf("Time %d: Process %d completed\n", currentTime, proc.getProcessId());
                     // System.out.println("===");
@@ -93,55 +101,84 @@ class RoundRobinScheduler extends  Scheduler{
                 // printProcessStatuses();
             } else {
                 // no ready processes: advance to next arrival
-                if (!arrivals.isEmpty()) {
-                    int nextArrival = arrivals.peek().getArrivalTime();
+                if (next < arrivals.length) {
+                    int nextArrival = table.getArrivalTime(arrivals[next]);
                     int old = currentTime;
                     currentTime = Math.max(currentTime + 1, nextArrival);
                     idleTime += Math.max(0, currentTime - old);
 
-                    while (!arrivals.isEmpty() && arrivals.peek().getArrivalTime() <= currentTime) {
-                        readyQueue.add(arrivals.poll());
+                    while (next < arrivals.length && table.getArrivalTime(arrivals[next]) <= currentTime) {
+                        readyQueue.add(arrivals[next++]);
                     }
                 } else {
                     break; // nothing left
                 }
             }
-
-            try { Thread.sleep(10); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; }
         }
 
-        System.out.println("\nSimulation completed.");
-        printStatistics();
+        trace.message("\nSimulation completed.");
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStatistics();
     }
 
 
-    private void printContextSwitch(int currentTime) {
-        String ctxSwitch = String.format(
-            "%-15s %s",
-            String.format("time %d-%d:", currentTime, currentTime + contextSwitch),
-            "Context Switching"
-        );
-        System.out.println(ctxSwitch + "\n===");
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    /*
+       While nobody arrives and nobody finishes, round robin just rotates the
+       ready queue: every round runs each of the k jobs for a full quantum and,
+       with k >= 2, switches context before each of them. Those rounds are
+       applied here in one step instead of k dispatches each. It only applies
+       to jobs that have all run before (no response times to set) and when no
+       trace is wanted, since the skipped slices are never reported.
+       Returns the time after the skipped rounds.
+    */
+    private int fastForward(int currentTime, int nextArrival) {
+        int k = readyQueue.size();
+        if (currentProcess == -1)
+            return currentTime;
+        int minRemaining = Integer.MAX_VALUE;
+        int before = currentProcess;    // ran last; the first job switches away from it
+        for (int i = 0; i < k; i++) {
+            int p = readyQueue.get(i);
+            if (table.getResponseTime(p) == -1)
+                return currentTime;
+            // with k >= 2 every dispatch must switch, a lone job must continue
+            boolean switches = table.getProcessId(before) != table.getProcessId(p);
+            if (switches != (k >= 2))
+                return currentTime;
+            minRemaining = Math.min(minRemaining, table.getRemainingTime(p));
+            before = p;
         }
+        if (k >= 2 && table.getProcessId(readyQueue.get(k - 1)) == table.getProcessId(readyQueue.get(0)))
+            return currentTime;
+
+        long roundLength = (long) k * (timeQuantum + (k >= 2 ? contextSwitch : 0));
+        // every job keeps at least one unit, and the last slice ends before the next arrival
+        long rounds = (minRemaining - 1) / timeQuantum;
+        if (nextArrival != Integer.MAX_VALUE)
+            rounds = Math.min(rounds, (nextArrival - 1L - currentTime) / roundLength);
+        if (rounds <= 0)
+            return currentTime;
+
+        int ran = (int) (rounds * timeQuantum);
+        for (int i = 0; i < k; i++) {
+            int p = readyQueue.get(i);
+            table.setRemainingTime(p, table.getRemainingTime(p) - ran);
+        }
+        busyTime += (int) (rounds * k * timeQuantum);
+        if (k >= 2)
+            ctxSwitchTime += (int) (rounds * k * contextSwitch);
+        currentProcess = readyQueue.get(k - 1);
+        return (int) (currentTime + rounds * roundLength);
+    }
+
+    private void printContextSwitch(int currentTime) {
+        trace.contextSwitch(currentTime, currentTime + contextSwitch);
     }
 
     private void printProcess(int before, int currentTime) {
-        String batch = String.format(
-            "%-15s %s ",
-            String.format("time %d-%d:", before, currentTime),   
-            currentProcess.trace()
-        );
-        System.out.println(batch + "\n===");
-        try {
-            Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt
-        }
-   }
+        trace.execution(before, currentTime, table, currentProcess, null);
+    }
 
     // private void printProcessStatuses() {
     //     for (Process p : processes) {
@@ -157,9 +194,10 @@ class RoundRobinScheduler extends  Scheduler{
     // }
 
     public void printStatistics() {
-        System.out.println("╔════════════════════════════════════════════════╗");
-        System.out.println("║      Round Robin Scheduler Statistics          ║");
-        System.out.println("╚════════════════════════════════════════════════╝\n");
-        super.printStatsDetials(finishedProcesses, busyTime, idleTime, ctxSwitchTime);
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║      Round Robin Scheduler Statistics          ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+// averages and CPU accounting of one finished scheduler run
+public final class RunSummary {
+    private final int finished;
+    private final double averageTurnaround;
+    private final double averageWaiting;
+    private final double averageResponse;
+    private final int busyTime;
+    private final int idleTime;
+    private final int ctxSwitchTime;
+
+    private RunSummary(int finished, double averageTurnaround, double averageWaiting, double averageResponse,
+                       int busyTime, int idleTime, int ctxSwitchTime) {
+        this.finished = finished;
+        this.averageTurnaround = averageTurnaround;
+        this.averageWaiting = averageWaiting;
+        this.averageResponse = averageResponse;
+        this.busyTime = busyTime;
+        this.idleTime = idleTime;
+        this.ctxSwitchTime = ctxSwitchTime;
+    }
+
+    // same figures as Scheduler.printStatsDetials
+    public static RunSummary of(SchedulerStats stats, int busyTime, int idleTime, int ctxSwitchTime) {
+        return new RunSummary((int) stats.getCount(),
+                stats.get(SchedulerStats.Metric.TURNAROUND).getMean(),
+                stats.get(SchedulerStats.Metric.WAITING).getMean(),
+                stats.get(SchedulerStats.Metric.RESPONSE).getMean(),
+                busyTime, idleTime, ctxSwitchTime);
+    }
+
+    public int getFinished() {
+        return finished;
+    }
+
+    public double getAverageTurnaround() {
+        return averageTurnaround;
+    }
+
+    public double getAverageWaiting() {
+        return averageWaiting;
+    }
+
+    public double getAverageResponse() {
+        return averageResponse;
+    }
+
+    public int getBusyTime() {
+        return busyTime;
+    }
+
+    public int getIdleTime() {
+        return idleTime;
+    }
+
+    public int getCtxSwitchTime() {
+        return ctxSwitchTime;
+    }
+
+    public int getTotalTime() {
+        return busyTime + idleTime + ctxSwitchTime;
+    }
+
+    // busy / total in percent, as printed in the stats report
+    public double getUtilization() {
+        int total = getTotalTime();
+        return total == 0 ? 0.0 : (busyTime / (double) total) * 100.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("finished=%d, turnaround=%.2f, waiting=%.2f, response=%.2f, utilization=%.2f%%",
+                finished, averageTurnaround, averageWaiting, averageResponse, getUtilization());
+    }
+}
@@ -1,52 +1,60 @@
 import java.util.LinkedList;
-import java.util.List;
 
 public class SJF_NonPreemptive extends  Scheduler {
-    LinkedList<Process> processes;
+    private ProcessTable table;
     private int busyTime;
     private int idleTime;
     private int ctxSwitchTime;
     private int currentTime = 0;
     private final int contextSwitch = 2;
-    private List<Process> finishedProcesses;
 
     public SJF_NonPreemptive(LinkedList<Process> processes) {
-        this.processes = processes;
-        this.finishedProcesses = new LinkedList<>(); // FIX
+        this(ProcessTable.of(processes));
+    }
+
+    public SJF_NonPreemptive(ProcessTable table) {
+        this.table = table;
     }
 
     @Override
     public void run() {
-        processes.sort((a, b) -> a.getArrivalTime() - b.getArrivalTime());
-        System.out.println("╔══════════════════════════════════════════════════════════╗");
-        System.out.println("║            SJF Non-Preemptive Scheduling trace           ║");
-        System.out.println("╚══════════════════════════════════════════════════════════╝\n");
-
-        while (!processes.isEmpty()) {
-            LinkedList<Process> available = new LinkedList<>();
-            for (Process p : processes) {
-                if (p.getArrivalTime() <= currentTime) {
-                    available.add(p);
-                }
+        // rows by arrival; the heap holds positions in this array, so equal
+        // bursts go to the earlier arrival, then to the earlier row
+        int[] processes = table.rowsByArrival();
+        int n = processes.length;
+        IndexedMinHeap available = new IndexedMinHeap(n, (a, b) -> {
+            int byBurst = Integer.compare(table.getBurstTime(processes[a]), table.getBurstTime(processes[b]));
+            return byBurst != 0 ? byBurst : Integer.compare(a, b);
+        });
+        int cursor = 0;
+        int remaining = n;
+
+        trace.message("╔══════════════════════════════════════════════════════════╗");
+        trace.message("║            SJF Non-Preemptive Scheduling trace           ║");
+        trace.message("╚══════════════════════════════════════════════════════════╝\n");
+
+        while (remaining > 0) {
+            while (cursor < n && table.getArrivalTime(processes[cursor]) <= currentTime) {
+                available.add(cursor++);
             }
 
             if (available.isEmpty()) {
-                idleTime += processes.getFirst().getArrivalTime() - currentTime;
-                currentTime = processes.getFirst().getArrivalTime();
+                idleTime += table.getArrivalTime(processes[cursor]) - currentTime;
+                currentTime = table.getArrivalTime(processes[cursor]);
                 continue;
             }
 
-            Process current = available.stream()
-                    .min((x, y) -> x.getBurstTime() - y.getBurstTime())
-                    .get();
+            int current = processes[available.poll()];
 
-            current.setStartedAt(currentTime);
-            current.setResponseTime(current.getStartedAt() - current.getArrivalTime()); // FIX
+            table.setStartedAt(current, currentTime);
+            table.setResponseTime(current, table.getStartedAt(current) - table.getArrivalTime(current)); // FIX
 
-            currentTime += current.getBurstTime();
-            current.setFinishedAt(currentTime);
-            current.calculateAllTimes();
-            busyTime += current.getBurstTime();
+            currentTime += table.getBurstTime(current);
+            table.setRemainingTime(current, 0);
+            table.setFinishedAt(current, currentTime);
+            table.calculateAllTimes(current);
+            recordFinished(table, current);
+            busyTime += table.getBurstTime(current);
 
             // if (!processes.isEmpty() && processes.size() > 1) {
             //     // printContextSwitch();
@@ -54,12 +62,11 @@ public class SJF_NonPreemptive extends  Scheduler {
             //     currentTime += contextSwitch;
             // }
 
-            finishedProcesses.add(current);
-            processes.remove(current);
+            remaining--;
 
             printProcess(current);
 
-            if (!processes.isEmpty()) {
+            if (remaining > 0) {
                 printContextSwitch();
                 ctxSwitchTime += contextSwitch;
                 currentTime += contextSwitch;
@@ -67,35 +74,17 @@ public class SJF_NonPreemptive extends  Scheduler {
             // printProcessStatuses();
         }
 
-        printStats();
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
     }
 
-    private void printProcess(Process currentProcess) {
-        String batch = String.format(
-            "%-15s %s",
-            String.format("time %d-%d:", currentProcess.getStartedAt(), currentProcess.getFinishedAt()),   
-            currentProcess.trace()        
-        );
-        System.out.println(batch + "\n===");
-        try {
-            Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt
-        }
+    private void printProcess(int row) {
+        trace.execution(table.getStartedAt(row), table.getFinishedAt(row), table, row, null);
     }
 
     private void printContextSwitch() {
-        String ctxSwitch = String.format(
-            "%-15s %s",
-            String.format("time %d-%d:", currentTime, currentTime + contextSwitch),   // time column
-            "Context Switching"
-        );
-        System.out.println(ctxSwitch + "\n===");
-        try {
-            Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt
-        }
+        trace.contextSwitch(currentTime, currentTime + contextSwitch);
     }
 
     // private void printProcessStatuses() {
@@ -107,9 +96,10 @@ public class SJF_NonPreemptive extends  Scheduler {
     // }
     
     private void printStats(){
-        System.out.println("╔══════════════════════════════════════════════════════════╗");
-        System.out.println("║           SJF Non-Preemptive Scheduling stats            ║");
-        System.out.println("╚══════════════════════════════════════════════════════════╝\n");
-        super.printStatsDetials(finishedProcesses, busyTime, idleTime, ctxSwitchTime);
+        trace.flush();
+        report.println("╔══════════════════════════════════════════════════════════╗");
+        report.println("║           SJF Non-Preemptive Scheduling stats            ║");
+        report.println("╚══════════════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
     }
 }
@@ -0,0 +1,370 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/*
+   symmetric multiprocessing: N simulated cores, each with its own clock and
+   its own ready queues, running either the multi-level queue policy (one
+   queue per ProcessType, round robin in all but the last) or plain round
+   robin. With one core both behave like MQScheduler and RoundRobinScheduler.
+
+   An arriving process goes to the core with the fewest queued or running
+   processes. A core that runs out of work steals from the tail of the
+   busiest core's highest non-empty queue. Running a process on a different
+   core than last time costs migrationCost on top of the context switch.
+
+   Cores are simulated in order of their clocks, so every decision only ever
+   sees arrivals and queue contents up to its own time.
+*/
+public class SMPScheduler extends Scheduler {
+
+    public enum Policy { MULTI_LEVEL_QUEUE, ROUND_ROBIN }
+
+    private static final int MQ_QUANTUM = 4;
+
+    private final ProcessTable table;
+    private final Policy policy;
+    private final int cores;
+    private final int quantum;
+    private final int levels;
+    private final int contextSwitch = 2;
+    private int migrationCost = 1;
+    private boolean workStealing = true;
+    private final String[][] labels;     // per core and queue
+
+    // per core
+    private IntQueue[][] queues;
+    private int[] clock;
+    private int[] queued;
+    private int[] running;      // slice ends at clock, requeued at the core's next decision
+    private int[] runningLevel;
+    private int[] last;         // row that ran last, for context switches
+    private int[] busyTime;
+    private int[] ctxSwitchTime;
+    private int[] migrationTime;
+    private int[] dispatches;
+    private int[] steals;
+
+    private boolean[] parked;   // idle and out of the ready heap until there is work
+    private IntQueue parkedCores;
+    private IndexedMinHeap ready;   // cores by clock
+
+    // per row
+    private int[] lastCore;
+
+    private int[] arrivals;         // rows by (arrival, id), consumed through next
+    private int next;
+    private IntQueue[] levelArrivals;
+
+    private int makespan;
+    private int finished;
+
+    public SMPScheduler(LinkedList<Process> rawProcesses, int cores, Policy policy, int quantum) {
+        this(ProcessTable.of(rawProcesses), cores, policy, quantum);
+    }
+
+    // quantum is the round robin slice; the multi-level queue policy uses MQScheduler's fixed one
+    public SMPScheduler(ProcessTable table, int cores, Policy policy, int quantum) {
+        if (cores < 1)
+            throw new IllegalArgumentException("cores must be at least 1: " + cores);
+        if (quantum < 1)
+            throw new IllegalArgumentException("quantum must be at least 1: " + quantum);
+        this.table = table;
+        this.cores = cores;
+        this.policy = policy;
+        this.quantum = policy == Policy.MULTI_LEVEL_QUEUE ? MQ_QUANTUM : quantum;
+        this.levels = policy == Policy.MULTI_LEVEL_QUEUE ? ProcessType.values().length : 1;
+
+        labels = new String[cores][levels];
+        for (int c = 0; c < cores; c++) {
+            if (policy == Policy.ROUND_ROBIN) {
+                labels[c][0] = "cpu" + c;
+                continue;
+            }
+            for (ProcessType type : ProcessType.values())
+                labels[c][type.getQueueIndex()] = String.format("cpu%-3d %-6s queue", c, type);
+        }
+    }
+
+    public void setMigrationCost(int migrationCost) {
+        if (migrationCost < 0)
+            throw new IllegalArgumentException("negative migration cost: " + migrationCost);
+        this.migrationCost = migrationCost;
+    }
+
+    public void setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+    }
+
+    @Override
+    public void run() {
+        trace.message("╔════════════════════════════════════════════════╗");
+        trace.message("║   Symmetric Multiprocessing (SMP) Simulation   ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
+
+        int n = table.size();
+        queues = new IntQueue[cores][levels];
+        for (int c = 0; c < cores; c++)
+            for (int l = 0; l < levels; l++)
+                queues[c][l] = new IntQueue();
+        clock = new int[cores];
+        queued = new int[cores];
+        running = new int[cores];
+        runningLevel = new int[cores];
+        last = new int[cores];
+        busyTime = new int[cores];
+        ctxSwitchTime = new int[cores];
+        migrationTime = new int[cores];
+        dispatches = new int[cores];
+        steals = new int[cores];
+        Arrays.fill(running, -1);
+        Arrays.fill(last, -1);
+        lastCore = new int[n];
+        Arrays.fill(lastCore, -1);
+        makespan = 0;
+        finished = 0;
+
+        // arrivals ordered by (arrival, id), plus the same order split per queue
+        // so the multi-level policy can see the next arrival above a level
+        arrivals = table.sortedRows((a, b) -> {
+            int c = Integer.compare(table.getArrivalTime(a), table.getArrivalTime(b));
+            return c != 0 ? c : Integer.compare(table.getProcessId(a), table.getProcessId(b));
+        });
+        levelArrivals = new IntQueue[levels];
+        for (int l = 0; l < levels; l++)
+            levelArrivals[l] = new IntQueue();
+        for (int row : arrivals)
+            levelArrivals[level(row)].add(row);
+        next = 0;
+
+        ready = new IndexedMinHeap(cores, (a, b) -> {
+            int byClock = Integer.compare(clock[a], clock[b]);
+            return byClock != 0 ? byClock : Integer.compare(a, b);
+        });
+        parked = new boolean[cores];
+        parkedCores = new IntQueue(cores);
+        for (int c = 0; c < cores; c++)
+            ready.add(c);
+
+        while (finished < n) {
+            // an arrival before the next core decision is an event of its own,
+            // it may wake a parked core
+            int nextArrival = next < n ? table.getArrivalTime(arrivals[next]) : Integer.MAX_VALUE;
+            if (ready.isEmpty() || nextArrival < clock[ready.peek()]) {
+                if (nextArrival == Integer.MAX_VALUE)
+                    break;
+                admit(nextArrival);
+                continue;
+            }
+
+            int core = ready.poll();
+            int now = clock[core];
+            admit(now);
+            if (running[core] != -1) {
+                enqueue(core, running[core], runningLevel[core], now);
+                running[core] = -1;
+            }
+
+            int level = highestLevel(core);
+            int victim = core;
+            if (level == -1 && workStealing) {
+                victim = busiest();
+                if (victim != -1)
+                    level = highestLevel(victim);
+            }
+
+            if (level == -1) {
+                // nothing to run or steal: sleep until an arrival is placed
+                // here or another core has work to spare
+                parked[core] = true;
+                parkedCores.add(core);
+                continue;
+            }
+
+            int row;
+            if (victim == core) {
+                row = queues[core][level].poll();
+            } else {
+                row = queues[victim][level].pollLast();
+                steals[core]++;
+            }
+            queued[victim]--;
+            int decided = now;
+
+            if (last[core] != -1 && table.getProcessId(last[core]) != table.getProcessId(row)) {
+                trace.contextSwitch(now, now + contextSwitch);
+                now += contextSwitch;
+                ctxSwitchTime[core] += contextSwitch;
+            }
+            if (lastCore[row] != -1 && lastCore[row] != core && migrationCost > 0) {
+                if (trace.isMessageEnabled())
+                    trace.message(String.format("%-15s Migration of process %d from cpu%d to cpu%d\n===",
+                            "time " + now + "-" + (now + migrationCost) + ":", table.getProcessId(row), lastCore[row], core));
+                now += migrationCost;
+                migrationTime[core] += migrationCost;
+            }
+            last[core] = row;
+            lastCore[row] = core;
+            dispatches[core]++;
+
+            if (table.getResponseTime(row) == -1) {
+                table.setStartedAt(row, now);
+                table.setResponseTime(row, now - table.getArrivalTime(row));
+            }
+
+            int runFor = Math.min(quantum, table.getRemainingTime(row));
+            if (policy == Policy.MULTI_LEVEL_QUEUE) {
+                // the last queue is FCFS; every queue gives way to an arrival above it
+                if (level == levels - 1)
+                    runFor = table.getRemainingTime(row);
+                for (int l = 0; l < level; l++)
+                    if (!levelArrivals[l].isEmpty())
+                        runFor = Math.min(runFor, Math.max(0, table.getArrivalTime(levelArrivals[l].peek()) - now));
+            }
+
+            int start = now;
+            now += runFor;
+            table.setRemainingTime(row, table.getRemainingTime(row) - runFor);
+            busyTime[core] += runFor;
+            trace.execution(start, now, table, row, labels[core][level]);
+
+            if (table.end(row)) {
+                table.setFinishedAt(row, now);
+                table.calculateAllTimes(row);
+                recordFinished(table, row);
+                finished++;
+                makespan = Math.max(makespan, now);
+            } else if (runFor == 0) {
+                // preempted during the switch: back in line before the arrival that did it
+                enqueue(core, row, level, decided);
+            } else {
+                running[core] = row;
+                runningLevel[core] = level;
+            }
+            clock[core] = now;
+            ready.add(core);
+
+            // whatever is still queued here waits while this core is busy
+            if (workStealing && queued[core] > 0)
+                wakeAny(decided);
+        }
+
+        trace.message("\nSimulation completed.");
+        summarize(makespan, sum(busyTime), totalIdleTime(), sum(ctxSwitchTime) + sum(migrationTime));
+        if (reporting)
+            printStats();
+    }
+
+    private int level(int row) {
+        return policy == Policy.MULTI_LEVEL_QUEUE ? table.getType(row).getQueueIndex() : 0;
+    }
+
+    private void admit(int time) {
+        while (next < arrivals.length && table.getArrivalTime(arrivals[next]) <= time) {
+            int row = arrivals[next++];
+            levelArrivals[level(row)].poll();
+            enqueue(leastLoaded(), row, level(row), time);
+        }
+    }
+
+    private void enqueue(int core, int row, int level, int time) {
+        queues[core][level].add(row);
+        queued[core]++;
+        if (parked[core])
+            wake(core, time);
+    }
+
+    private void wake(int core, int time) {
+        parked[core] = false;
+        clock[core] = Math.max(clock[core], time);
+        ready.add(core);
+    }
+
+    // wakes one parked core so it can steal; stale entries were woken by an arrival
+    private void wakeAny(int time) {
+        while (!parkedCores.isEmpty()) {
+            int core = parkedCores.poll();
+            if (parked[core]) {
+                wake(core, time);
+                return;
+            }
+        }
+    }
+
+    private int load(int core) {
+        return queued[core] + (running[core] != -1 ? 1 : 0);
+    }
+
+    private int leastLoaded() {
+        int best = 0;
+        for (int c = 1; c < cores; c++)
+            if (load(c) < load(best))
+                best = c;
+        return best;
+    }
+
+    // core with the most queued processes, or -1 if every queue is empty
+    private int busiest() {
+        int best = -1;
+        for (int c = 0; c < cores; c++)
+            if (queued[c] > 0 && (best == -1 || queued[c] > queued[best]))
+                best = c;
+        return best;
+    }
+
+    private int highestLevel(int core) {
+        for (int l = 0; l < levels; l++)
+            if (!queues[core][l].isEmpty())
+                return l;
+        return -1;
+    }
+
+    // every core is accounted up to the last completion, idle for whatever it did not spend working
+    private int idleTime(int core) {
+        return makespan - busyTime[core] - ctxSwitchTime[core] - migrationTime[core];
+    }
+
+    private int totalIdleTime() {
+        int idle = 0;
+        for (int c = 0; c < cores; c++)
+            idle += idleTime(c);
+        return idle;
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int v : values)
+            total += v;
+        return total;
+    }
+
+    private void printStats() {
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        if (policy == Policy.MULTI_LEVEL_QUEUE)
+            report.println("║     SMP Multi-Level Queue Scheduler Stats      ║");
+        else
+            report.println("║       SMP Round Robin Scheduler Stats          ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, sum(busyTime), totalIdleTime(), sum(ctxSwitchTime) + sum(migrationTime));
+
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║                 Per-Core Stats                 ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        report.println(String.format("%-6s %-10s %-16s %-11s %-10s %-11s %-8s %-12s",
+                "Core", "Busy_time", "Context_switch", "Migration", "Idle_time", "Dispatches", "Steals", "Utilization"));
+        report.println("-".repeat(92));
+        for (int c = 0; c < cores; c++) {
+            double utilization = makespan == 0 ? 0.0 : (busyTime[c] / (double) makespan) * 100.0;
+            report.println(String.format("%-6s %-10d %-16d %-11d %-10d %-11d %-8d %.2f%%",
+                    "cpu" + c, busyTime[c], ctxSwitchTime[c], migrationTime[c], idleTime(c),
+                    dispatches[c], steals[c], utilization));
+        }
+        report.println("-".repeat(92));
+        report.println(String.format("%-25s = %d", "Cores", cores));
+        report.println(String.format("%-25s = %d", "Migration cost", migrationCost));
+        report.println(String.format("%-25s = %s", "Work stealing", workStealing ? "on" : "off"));
+        report.println(String.format("%-25s = %d", "Makespan", makespan));
+        report.println(String.format("%-25s = %.4f jobs/unit",
+                "Throughput", makespan == 0 ? 0.0 : finished / (double) makespan));
+    }
+}
@@ -1,9 +1,8 @@
-import java.util.*;
+import java.util.LinkedList;
 
 public class SRTScheduler extends Scheduler {
 
-    private LinkedList<Process> processes;
-    private List<Process> finishedProcesses;
+    private ProcessTable table;
     private int currentTime = 0;
     private int busyTime = 0;
     private int idleTime = 0;
@@ -11,94 +10,103 @@ public class SRTScheduler extends Scheduler {
     private int contextSwitches = 0;
 
     public SRTScheduler(LinkedList<Process> processes) {
-        this.processes = new LinkedList<>(processes);
-        this.finishedProcesses = new ArrayList<>();
+        this(ProcessTable.of(processes));
+    }
+
+    public SRTScheduler(ProcessTable table) {
+        this.table = table;
     }
 
     @Override
     public void run() {
-        System.out.println("╔════════════════════════════════════════════════╗");
-        System.out.println("║     Shortest Remaining Time (SRT) Scheduler    ║");
-        System.out.println("╚════════════════════════════════════════════════╝\n");
+        trace.message("╔════════════════════════════════════════════════╗");
+        trace.message("║     Shortest Remaining Time (SRT) Scheduler    ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
+
+        // event-driven: the clock only stops at arrival and completion instants
+        int n = table.size();
 
-        LinkedList<Process> readyQueue = new LinkedList<>();
-        Process currentProcess = null;
+        // arrival cursor: rows sorted by arrival, input order on ties
+        int[] byArrival = table.rowsByArrival();
+        int cursor = 0;
 
-        while (finishedProcesses.size() < processes.size()) {
+        // admission round of each process; a tie on remaining time goes to the
+        // process admitted first, then to the one listed first
+        int[] admittedAt = new int[n];
+        int round = 0;
+        IndexedMinHeap readyQueue = new IndexedMinHeap(n, (a, b) -> {
+            int c = Integer.compare(table.getRemainingTime(a), table.getRemainingTime(b));
+            if (c == 0) c = Integer.compare(admittedAt[a], admittedAt[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        int currentProcess = -1;
+        int finished = 0;
+
+        while (finished < n) {
 
             // Add arrived processes
-            for (Process p : processes) {
-                if (p.getArrivalTime() <= currentTime &&
-                    p.getFinishedAt() == -1 &&
-                    !readyQueue.contains(p) &&
-                    !finishedProcesses.contains(p)) {
-                    readyQueue.add(p);
-                }
+            round++;
+            while (cursor < n && table.getArrivalTime(byArrival[cursor]) <= currentTime) {
+                admittedAt[byArrival[cursor]] = round;
+                readyQueue.add(byArrival[cursor++]);
             }
 
             if (readyQueue.isEmpty()) {
-                idleTime++;
-                currentTime++;
+                // jump straight to the next arrival
+                int next = table.getArrivalTime(byArrival[cursor]);
+                idleTime += next - currentTime;
+                currentTime = next;
                 continue;
             }
 
             // Pick shortest remaining time
-            Process nextProcess = readyQueue.stream()
-                    .min(Comparator.comparingInt(Process::getRemainingTime))
-                    .get();
+            int nextProcess = readyQueue.peek();
 
             // Context switch
-            if (currentProcess != null &&
-                currentProcess.getProcessId() != nextProcess.getProcessId()) {
-                // currentProcess.setFinishedAt(currentTime);
-
+            if (currentProcess != -1 &&
+                table.getProcessId(currentProcess) != table.getProcessId(nextProcess)) {
                 contextSwitches++;
+                trace.contextSwitch(currentTime, currentTime + ctxSwitchTime);
                 currentTime += ctxSwitchTime;
-                // printContextSwitch();
             }
 
             currentProcess = nextProcess;
 
             // First time execution
-            if (nextProcess.getStartedAt() == -1) {
-                nextProcess.setStartedAt(currentTime);
-                nextProcess.setResponseTime(currentTime - nextProcess.getArrivalTime());
+            if (table.getStartedAt(nextProcess) == -1) {
+                table.setStartedAt(nextProcess, currentTime);
+                table.setResponseTime(nextProcess, currentTime - table.getArrivalTime(nextProcess));
             }
 
-            // Execute 1 unit
-            nextProcess.decrement();
-            busyTime++;
-            currentTime++;
-
-            if (nextProcess.end()) {
-                nextProcess.setFinishedAt(currentTime);
-                nextProcess.calculateAllTimes();
-                finishedProcesses.add(nextProcess);
+            // Execute until it completes or the next arrival may preempt it,
+            // always at least one unit as a decision is only taken per unit
+            int runFor = table.getRemainingTime(nextProcess);
+            if (cursor < n) {
+                runFor = Math.min(runFor, table.getArrivalTime(byArrival[cursor]) - currentTime);
+            }
+            runFor = Math.max(runFor, 1);
+
+            table.setRemainingTime(nextProcess, table.getRemainingTime(nextProcess) - runFor);
+            readyQueue.decreaseKey(nextProcess);
+            busyTime += runFor;
+            currentTime += runFor;
+            trace.execution(currentTime - runFor, currentTime, table, nextProcess, null);
+
+            if (table.end(nextProcess)) {
+                table.setFinishedAt(nextProcess, currentTime);
+                table.calculateAllTimes(nextProcess);
+                recordFinished(table, nextProcess);
                 readyQueue.remove(nextProcess);
-                printProcess(nextProcess);
+                finished++;
             }
-
-            // printProcess(currentProcess);
-            // printProcessStatuses(readyQueue);
         }
 
-        printStats();
+        summarize(busyTime, idleTime, ctxSwitchTime * contextSwitches);
+        if (reporting)
+            printStats();
     }
 
-    private void printProcess(Process currentProcess) {
-        String batch = String.format(
-            "%-15s %s",
-            String.format("time %d-%d:", currentProcess.getStartedAt(), currentProcess.getFinishedAt()),
-            currentProcess.trace()
-        );
-        System.out.println(batch + "\n===");
-        try {
-            Thread.sleep(500); // pause 500 milliseconds (0.5 seconds)
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // restore interrupt
-        }
-   }
-
    // private void printContextSwitch() {
     //     String ctxSwitch = String.format(
     //         "%-15s %s",
@@ -127,9 +135,10 @@ public class SRTScheduler extends Scheduler {
     // }
 
     private void printStats() {
-        System.out.println("╔════════════════════════════════════════════════╗");
-        System.out.println("║     Shortest Remaining Time (SRT) Scheduler    ║");
-        System.out.println("╚════════════════════════════════════════════════╝\n");
-        super.printStatsDetials(finishedProcesses, busyTime, idleTime, ctxSwitchTime * contextSwitches);
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║     Shortest Remaining Time (SRT) Scheduler    ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime * contextSwitches);
     }
 }
@@ -1,6 +1,8 @@
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Scanner;
 
 @SuppressWarnings("resource")
@@ -8,21 +10,22 @@ public class SchedularTest {
 
     public static void main(String[] args) {
 
-        LinkedList<Process> processes;
+        ProcessTable processes = null;
 
         String opt = helpOptions();
 
         if (opt.equalsIgnoreCase("A")) {
             processes = readFromFileProcesses();
-        } else {
+        }
+        if (processes == null) {
             processes = readProcessesFromInteractiveMode();
         }
 
         // Debug print
         System.out.println("\nProcesses loaded:");
         
-        for (Process p : processes) {
-            System.out.println(p.toString());
+        for (int row = 0; row < processes.size(); row++) {
+            System.out.println(processes.toString(row));
         }
         System.out.println("\t\t\t the big moment \t\t\t");
         String AlgorthimsScheduling [] = {
@@ -32,7 +35,14 @@ public class SchedularTest {
             "Round Robin",
             "Priority",
             "Multi Level Queue",
-            "Multi Level Queue Feedback"
+            "Multi Level Queue Feedback",
+            "Multi Level Queue (SMP)",
+            "Round Robin (SMP)",
+            "Completely Fair (CFS)",
+            "Deadline (EDF / Rate Monotonic)",
+            "Lottery",
+            "Stride",
+            "Compare all (in parallel)"
         };
         
         Scheduler scheduler; // interface the implemented in all class to help us make one referrence to all
@@ -40,17 +50,40 @@ public class SchedularTest {
             System.out.println(i + ")\t" + AlgorthimsScheduling[i]);
 
         }
+        Scanner cin = new Scanner(System.in);
+        System.out.print("Choose algorithm: ");
+        int index = cin.nextInt();
+        if (index == AlgorthimsScheduling.length - 1) {
+            compareAll(processes, cin);
+            return;
+        }
         //  make part of take the schedulars 
         // then tries to run them by run  method
-        scheduler = getScheduler(processes);
+        scheduler = getScheduler(processes, index, cin);
+        if (scheduler == null)
+            return;
+        scheduler.setTraceSink(ConsoleTraceSink.paced());
         scheduler.run();
 
     }
-    private static Scheduler getScheduler(LinkedList<Process> p){
-        Scanner cin = new Scanner(System.in);
-        System.out.print("Choose algorithm: ");
-        int index = cin.nextInt();
 
+    // every single-CPU algorithm on its own copy of the workload, all at once
+    private static void compareAll(ProcessTable p, Scanner cin) {
+        System.out.println("please enter our time quantum");
+        int quentumtime = cin.nextInt();
+        long start = System.nanoTime();
+        List<ParameterSweep.Result> results = new ParameterSweep(p).algorithms(quentumtime).run();
+        long elapsed = System.nanoTime() - start;
+        System.out.println();
+        ParameterSweep.printComparison(results, System.out);
+        long sum = 0;
+        for (ParameterSweep.Result result : results)
+            sum += result.getElapsedNanos();
+        System.out.println(String.format("%n%d runs in %d ms (%d ms one after another)",
+                results.size(), elapsed / 1_000_000, sum / 1_000_000));
+    }
+
+    private static Scheduler getScheduler(ProcessTable p, int index, Scanner cin){
         switch (index) {
             case 0 -> {
                 return new FCFS(p);
@@ -77,6 +110,50 @@ public class SchedularTest {
             case 6 -> {
                 return new MLFQScheduler(p);
                 }
+            case 7, 8 -> {
+                System.out.println("please enter the number of cores");
+                int cores = cin.nextInt();
+                int quentumtime = 4;
+                if (index == 8) {
+                    System.out.println("please enter our time quantum");
+                    quentumtime = cin.nextInt();
+                }
+                System.out.println("please enter the migration cost");
+                int migrationCost = cin.nextInt();
+                SMPScheduler smp = new SMPScheduler(p, cores,
+                        index == 7 ? SMPScheduler.Policy.MULTI_LEVEL_QUEUE : SMPScheduler.Policy.ROUND_ROBIN, quentumtime);
+                smp.setMigrationCost(migrationCost);
+                return smp;
+                }
+            case 9 -> {
+                return new CFSScheduler(p);
+                }
+            case 10 -> {
+                System.out.println("please enter is earliest deadline 1 or rate monotonic 0");
+                int edf = cin.nextInt();
+                System.out.println("please enter the period of the processes (0 for a single job each)");
+                int period = cin.nextInt();
+                System.out.println("please enter the relative deadline (0 for the period)");
+                int deadline = cin.nextInt();
+                // only rows that do not have their own
+                for (int row = 0; row < p.size(); row++) {
+                    if (p.getPeriod(row) == 0)
+                        p.setPeriod(row, period);
+                    if (p.getDeadline(row) == 0)
+                        p.setDeadline(row, deadline);
+                }
+                return new EDFScheduler(p, edf == 1 ? EDFScheduler.Policy.EARLIEST_DEADLINE : EDFScheduler.Policy.RATE_MONOTONIC);
+                }
+            case 11, 12 -> {
+                System.out.println("please enter our time quantum");
+                int quentumtime = cin.nextInt();
+                System.out.println("please enter tickets by priority 1 or by type 0");
+                Tickets tickets = cin.nextInt() == 1 ? Tickets.PRIORITY : Tickets.TYPE;
+                System.out.println("please enter the random seed");
+                long seed = cin.nextLong();
+                return index == 11 ? new LotteryScheduler(p, quentumtime, tickets, seed)
+                        : new StrideScheduler(p, quentumtime, tickets, seed);
+                }
             default -> {
                 System.out.println("Invalid choice!");
                 return null;
@@ -98,50 +175,26 @@ public class SchedularTest {
         return opt;
     }
 
-    private static LinkedList<Process> readFromFileProcesses() {
-
-        LinkedList<Process> processes = new LinkedList<>();
-        boolean flag = true;
-
-        while (flag) {
-            try {
-                File file = new File("input.txt");
-                Scanner cin = new Scanner(file);
-
-                int numberOfProcesses = cin.nextInt();
-                System.out.println("Reading processes from file...");
-                System.out.println("----------------------------------------");
-
-                for (int i = 0; i < numberOfProcesses; i++) {
-                    String name = cin.next();
-                    int arrival = cin.nextInt();
-                    int burst = cin.nextInt();
-                    int priority = cin.nextInt();
-                    String type = cin.next();
-
-                    processes.add(new Process(
-                            name,
-                            i + 1,
-                            arrival,
-                            burst,
-                            priority,
-                            ProcessType.from(type)
-                    ));
-                }
-
-                flag = false;
-                cin.close();
-
-            } catch (FileNotFoundException e) {
-                System.out.println("ERROR: input.txt not found!");
-                flag = true;
-            }
+    // null when there is no input.txt, so main falls back to interactive mode
+    private static ProcessTable readFromFileProcesses() {
+
+        ProcessTable processes = new ProcessTable();
+        try {
+            System.out.println("Reading processes from file...");
+            System.out.println("----------------------------------------");
+            WorkloadParser.parse(Path.of("input.txt"), processes::add);
+        } catch (NoSuchFileException e) {
+            System.out.println("ERROR: input.txt not found!");
+            return null;
+        } catch (IOException e) {
+            System.out.println("ERROR: cannot read input.txt: " + e.getMessage());
+            return null;
         }
         System.out.println("Processes loaded successfully!");
         return processes;
     }
 
-    private static LinkedList<Process> readProcessesFromInteractiveMode() {
+    private static ProcessTable readProcessesFromInteractiveMode() {
 
         Scanner cin = new Scanner(System.in);
         LinkedList<Process> processes = new LinkedList<>();
@@ -178,6 +231,6 @@ public class SchedularTest {
         }
         System.out.println("Processes loaded successfully!");
 
-        return processes;
+        return ProcessTable.of(processes);
     }
 }
@@ -1,64 +1,142 @@
-import java.util.List;
+import java.io.PrintStream;
 
 public abstract class Scheduler {
+    private SimulationContext context = new SimulationContext();
+    // the context's, copied here for the subclasses
+    protected TraceSink trace;
+    protected PrintStream report;
+    protected boolean reporting;
+    protected SchedulerStats stats;
+    private static final int DETAIL_ROWS = 1000;   // above this the report skips the per-process table
+
+    protected Scheduler() {
+        adopt();
+    }
+
     abstract void  run();
-    public void printStatsDetials(List<Process> finishedProcesses , int busyTime , int idleTime, int ctxSwitchTime) {
-      if (finishedProcesses.isEmpty()) {
-         System.out.println("No finished processes to report.");
+
+    // the run's own ids, sinks, statistics and accounting; set before run()
+    // and before anything is recorded, so a resumed scheduler takes its context through resume()
+    public void setContext(SimulationContext context) {
+        if (stats.getCount() > 0)
+            throw new IllegalStateException("statistics of " + stats.getCount()
+                    + " finished processes would be lost; pass the context to resume() instead");
+        this.context = context;
+        adopt();
+    }
+
+    public SimulationContext getContext() {
+        return context;
+    }
+
+    private void adopt() {
+        trace = context.getTrace();
+        report = context.getReport();
+        reporting = context.isReporting();
+        stats = context.getStats();
+    }
+
+    // NullTraceSink for headless runs, ConsoleTraceSink.paced() to watch the simulation
+    public void setTraceSink(TraceSink trace) {
+        context.setTrace(trace);
+        this.trace = trace;
+    }
+
+    public TraceSink getTraceSink() {
+        return trace;
+    }
+
+    // false skips the stats report at the end of run(), e.g. for benchmarks
+    public void setReporting(boolean reporting) {
+        context.setReporting(reporting);
+        this.reporting = reporting;
+    }
+
+    // results of the last run(), or null before the first one completes
+    public RunSummary getSummary() {
+        return context.getSummary();
+    }
+
+    // percentiles of everything recorded through recordFinished
+    public SchedulerStats getStats() {
+        return stats;
+    }
+
+    // call once per process, when its finish, waiting, turnaround and response times are final
+    protected void recordFinished(ProcessTable table, int row) {
+        stats.record(table, row);
+    }
+
+    // one CPU: the clock ends at busy + idle + switch time
+    protected void summarize(int busyTime, int idleTime, int ctxSwitchTime) {
+        summarize(busyTime + idleTime + ctxSwitchTime, busyTime, idleTime, ctxSwitchTime);
+    }
+
+    protected void summarize(int endTime, int busyTime, int idleTime, int ctxSwitchTime) {
+        context.finish(endTime, busyTime, idleTime, ctxSwitchTime);
+    }
+
+    public void printStatsDetials(ProcessTable table , int busyTime , int idleTime, int ctxSwitchTime) {
+      long n = stats.getCount();
+      if (n == 0) {
+         report.println("No finished processes to report.");
          return;
       }
-      double totalTurnaround = 0;
-      double totalWaiting = 0;
-      double totalResponse = 0;
-      finishedProcesses.sort((a, b) -> a.getProcessId() - b.getProcessId());
-      System.out.println(
-         String.format(
-            "%-12s %-13s %-13s %-11s %-12s %-13s %-13s %-16s %-13s",
-            "Process_id", "Type", "Arrival_time", "Burst_time", "Started_at", "Finished_at", "Waiting_time", "Turnaround_time", "Response_time"
-         )
-      );
-      System.out.println("-".repeat(120));
-      for (Process p : finishedProcesses) {
-         totalTurnaround += p.getTurnaroundTime();
-         totalWaiting += p.getWaitingTime();
-         totalResponse += p.getResponseTime();         
-         // System.out.println(
-         //    String.format(
-         //       "%-15s %s",                              
-         //       String.format("Process_id=%d:", p.getId()), 
-         //       p.toString()
-         //    ) + "\n===" 
-         // );
-         System.out.println(
+      if (table.size() <= DETAIL_ROWS) {
+         report.println(
             String.format(
-               "%-12d %-13s %-13d %-11d %-12d %-13d %-13d %-16d %-13d",
-               p.getProcessId(), p.getType(), p.getArrivalTime(), p.getBurstTime(), p.getStartedAt(), 
-               p.getFinishedAt(), p.getWaitingTime(), p.getTurnaroundTime(), p.getResponseTime()
+               "%-12s %-13s %-13s %-11s %-12s %-13s %-13s %-16s %-13s",
+               "Process_id", "Type", "Arrival_time", "Burst_time", "Started_at", "Finished_at", "Waiting_time", "Turnaround_time", "Response_time"
             )
          );
+         report.println("-".repeat(120));
+         for (int p : table.rowsByProcessId()) {
+            if (!table.isFinished(p))
+               continue;
+            // report.println(
+            //    String.format(
+            //       "%-15s %s",                              
+            //       String.format("Process_id=%d:", p.getId()), 
+            //       p.toString()
+            //    ) + "\n===" 
+            // );
+            report.println(
+               String.format(
+                  "%-12d %-13s %-13d %-11d %-12d %-13d %-13d %-16d %-13d",
+                  table.getProcessId(p), table.getType(p), table.getArrivalTime(p), table.getBurstTime(p), table.getStartedAt(p),
+                  table.getFinishedAt(p), table.getWaitingTime(p), table.getTurnaroundTime(p), table.getResponseTime(p)
+               )
+            );
+         }
+         report.println("-".repeat(120));
+      } else {
+         report.println(n + " processes finished, per-process rows omitted above " + DETAIL_ROWS + " processes");
       }
-      System.out.println("-".repeat(120));
 
-      System.out.println("╔════════════════════════════════════════════════╗");
-      System.out.println("║                  Average Stats                 ║");
-      System.out.println("╚════════════════════════════════════════════════╝\n");
-      int n = finishedProcesses.size();
-      System.out.println(String.format(
+      report.println("╔════════════════════════════════════════════════╗");
+      report.println("║                  Average Stats                 ║");
+      report.println("╚════════════════════════════════════════════════╝\n");
+      report.println(String.format(
          "%-20s = %.2f\n%-20s = %.2f\n%-20s = %.2f",
-         "Average turnaround", totalTurnaround / n,
-         "Average waiting", totalWaiting / n,
-         "Average response", totalResponse / n
+         "Average turnaround", stats.get(SchedulerStats.Metric.TURNAROUND).getMean(),
+         "Average waiting", stats.get(SchedulerStats.Metric.WAITING).getMean(),
+         "Average response", stats.get(SchedulerStats.Metric.RESPONSE).getMean()
       ));
 
-      System.out.println("╔════════════════════════════════════════════════╗");
-      System.out.println("║                CPU Utilization                 ║");
-      System.out.println("╚════════════════════════════════════════════════╝\n");
+      report.println("╔════════════════════════════════════════════════╗");
+      report.println("║              Percentiles by Type               ║");
+      report.println("╚════════════════════════════════════════════════╝\n");
+      stats.print(report);
+
+      report.println("╔════════════════════════════════════════════════╗");
+      report.println("║                CPU Utilization                 ║");
+      report.println("╚════════════════════════════════════════════════╝\n");
       int totalTime = busyTime + idleTime + ctxSwitchTime;
       double utilization = totalTime == 0 ? 0.0 : (busyTime / (double) totalTime) * 100.0;
-      System.out.println(String.format("%-25s = %d", "Busy time", busyTime));
-      System.out.println(String.format("%-25s = %d", "Context-switch time", ctxSwitchTime));
-      System.out.println(String.format("%-25s = %d", "Idle time", idleTime));
-      System.out.println(String.format("%-25s = %d", "Total simulated time", totalTime));
-      System.out.println(String.format("%-25s = %.2f%%", "Utilization (busy/total)", utilization));
+      report.println(String.format("%-25s = %d", "Busy time", busyTime));
+      report.println(String.format("%-25s = %d", "Context-switch time", ctxSwitchTime));
+      report.println(String.format("%-25s = %d", "Idle time", idleTime));
+      report.println(String.format("%-25s = %d", "Total simulated time", totalTime));
+      report.println(String.format("%-25s = %.2f%%", "Utilization (busy/total)", utilization));
    }
 }
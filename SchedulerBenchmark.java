@@ -0,0 +1,317 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+   throughput benchmark for every scheduler, run headless on synthetic workloads
+
+   java SchedulerBenchmark --n=1000,100000 --algorithms=MQ,RR --arrivals=POISSON --bursts=EXPONENTIAL,BIMODAL
+   java SchedulerBenchmark --workload=trace.bin --algorithms=MQ,MLFQ
+
+   like JMH every configuration runs in its own forked JVM (--forks=0 runs in
+   process), with warmup iterations before the measured ones. Each iteration
+   schedules a fresh copy of the workload; the copy is not timed. Reported per
+   configuration: scheduler runs per second, time per scheduled job, and the
+   allocation rate and GC activity of the measured iterations. --workload
+   replaces the synthetic workloads with a file in either WorkloadParser
+   format, loaded once per fork and not timed. EDF and
+   RATE_MONOTONIC schedule the workload as periodic tasks (see periodic),
+   so their releases are measured too.
+*/
+public class SchedulerBenchmark {
+
+    enum Algorithm {
+        FCFS(t -> new FCFS(t)),
+        SJF(t -> new SJF_NonPreemptive(t)),
+        SRT(t -> new SRTScheduler(t)),
+        RR(t -> new RoundRobinScheduler(t, 4)),
+        PRIORITY(t -> new PriorityScheduler(t, false)),
+        PRIORITY_PREEMPTIVE(t -> new PriorityScheduler(t, true)),
+        MQ(t -> new MQScheduler(t)),
+        MLFQ(t -> new MLFQScheduler(t)),
+        CFS(t -> new CFSScheduler(t)),
+        EDF(t -> new EDFScheduler(t, EDFScheduler.Policy.EARLIEST_DEADLINE, horizon(t)), true),
+        RATE_MONOTONIC(t -> new EDFScheduler(t, EDFScheduler.Policy.RATE_MONOTONIC, horizon(t)), true),
+        LOTTERY(t -> new LotteryScheduler(t)),
+        STRIDE(t -> new StrideScheduler(t)),
+        SMP_MQ_4(t -> new SMPScheduler(t, 4, SMPScheduler.Policy.MULTI_LEVEL_QUEUE, 4)),
+        SMP_RR_4(t -> new SMPScheduler(t, 4, SMPScheduler.Policy.ROUND_ROBIN, 4));
+
+        final Function<ProcessTable, Scheduler> factory;
+        final boolean periodic;   // runs on periodic(workload)
+
+        Algorithm(Function<ProcessTable, Scheduler> factory) {
+            this(factory, false);
+        }
+
+        Algorithm(Function<ProcessTable, Scheduler> factory, boolean periodic) {
+            this.factory = factory;
+            this.periodic = periodic;
+        }
+    }
+
+    // all at the same load; a supplier because an MMPP keeps state between arrivals
+    enum Arrivals {
+        UNIFORM(() -> random -> random.nextDouble(2 * MEAN_GAP)),
+        POISSON(() -> WorkloadGenerator.poisson(MEAN_GAP)),
+        // groups of up to 32 arriving together, spaced to keep the same load
+        BURSTY(() -> random -> random.nextInt(16) == 0 ? random.nextDouble(32 * MEAN_GAP) : 0),
+        // five times the mean rate a ninth of the time, half of it the rest
+        MMPP(() -> WorkloadGenerator.mmpp(2 * MEAN_GAP, MEAN_GAP / 5, 400 * MEAN_GAP, 50 * MEAN_GAP));
+
+        final Supplier<WorkloadGenerator.ArrivalProcess> process;
+
+        Arrivals(Supplier<WorkloadGenerator.ArrivalProcess> process) {
+            this.process = process;
+        }
+    }
+
+    // all with a mean close to MEAN_BURST
+    enum Bursts {
+        UNIFORM(random -> 1 + random.nextInt(2 * MEAN_BURST - 1)),
+        EXPONENTIAL(random -> 1 + (int) (-Math.log(1 - random.nextDouble()) * (MEAN_BURST - 1))),
+        BIMODAL(random -> random.nextInt(10) == 0 ? 40 + random.nextInt(60) : 1 + random.nextInt(5)),
+        PARETO(WorkloadGenerator.pareto(MEAN_BURST / 3.0, 1.5)),
+        LOGNORMAL(WorkloadGenerator.lognormal(Math.log(MEAN_BURST) - 0.5, 1));
+
+        final WorkloadGenerator.IntDistribution distribution;
+
+        Bursts(WorkloadGenerator.IntDistribution distribution) {
+            this.distribution = distribution;
+        }
+    }
+
+    // weights of REAL_TIME, SYSTEM, INTERACTIVE, BATCH
+    enum Mix {
+        BALANCED(1, 1, 1, 1),
+        INTERACTIVE_HEAVY(1, 2, 6, 1),
+        BATCH_HEAVY(1, 1, 2, 6);
+
+        final int[] weights;
+
+        Mix(int... weights) {
+            this.weights = weights;
+        }
+    }
+
+    private static final int MEAN_BURST = 10;
+    private static final double LOAD = 0.9;   // mean burst / mean inter-arrival gap
+    private static final double MEAN_GAP = MEAN_BURST / LOAD;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        if (options.containsKey("fork-child")) {
+            runChild(options);
+            return;
+        }
+
+        List<Algorithm> algorithms = list(options, "algorithms", Algorithm.class, Algorithm.values());
+        int forks = Integer.parseInt(options.getOrDefault("forks", "1"));
+        long timeout = Long.parseLong(options.getOrDefault("timeout", "600"));
+        String file = options.get("workload");
+        List<Arrivals> arrivals = list(options, "arrivals", Arrivals.class, new Arrivals[] { Arrivals.POISSON });
+        List<Bursts> bursts = list(options, "bursts", Bursts.class, new Bursts[] { Bursts.EXPONENTIAL });
+        List<Mix> mixes = list(options, "mix", Mix.class, new Mix[] { Mix.BALANCED });
+        int[] sizes = Arrays.stream(options.getOrDefault("n", "1000,10000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+
+        System.out.println(String.format(
+            "%-20s %-9s %-8s %-12s %-18s %12s %12s %12s %12s %8s %9s",
+            "Algorithm", "n", "Arrivals", "Bursts", "Mix", "ops/s", "ns/job", "alloc MB/s", "alloc B/job", "gc", "gc ms"
+        ));
+        System.out.println("-".repeat(140));
+
+        if (file != null) {
+            int n = WorkloadParser.load(Path.of(file)).size();
+            for (Algorithm algorithm : algorithms) {
+                Map<String, String> run = new LinkedHashMap<>(options);
+                run.put("algorithm", algorithm.name());
+                String result = forks > 0 ? fork(run, timeout) : measure(run);
+                System.out.println(String.format("%-20s %-9d %-40s %s", algorithm, n, file, result));
+            }
+            return;
+        }
+
+        for (int n : sizes)
+            for (Arrivals a : arrivals)
+                for (Bursts b : bursts)
+                    for (Mix m : mixes)
+                        for (Algorithm algorithm : algorithms) {
+                            Map<String, String> run = new LinkedHashMap<>(options);
+                            run.put("algorithm", algorithm.name());
+                            run.put("size", String.valueOf(n));
+                            run.put("arrival", a.name());
+                            run.put("burst", b.name());
+                            run.put("type-mix", m.name());
+                            String result = forks > 0 ? fork(run, timeout) : measure(run);
+                            System.out.println(String.format("%-20s %-9d %-8s %-12s %-18s %s",
+                                    algorithm, n, a, b, m, result));
+                        }
+    }
+
+    private static void runChild(Map<String, String> options) throws IOException {
+        System.out.println("RESULT " + measure(options));
+    }
+
+    private static String measure(Map<String, String> options) throws IOException {
+        Algorithm algorithm = Algorithm.valueOf(options.get("algorithm"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        ProcessTable workload = options.containsKey("workload")
+                ? WorkloadParser.load(Path.of(options.get("workload")))
+                : workload(Integer.parseInt(options.get("size")), Arrivals.valueOf(options.get("arrival")),
+                        Bursts.valueOf(options.get("burst")), Mix.valueOf(options.get("type-mix")), seed);
+        int n = workload.size();
+        if (algorithm.periodic)
+            periodic(workload);
+
+        for (int i = 0; i < warmup; i++)
+            runOnce(algorithm, workload.copy());
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long nanos = 0;
+        long allocated = 0;
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (int i = 0; i < iterations; i++) {
+            ProcessTable copy = workload.copy();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            runOnce(algorithm, copy);
+            nanos += System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+            gcCount += gcCount() - gcCountBefore;
+            gcMillis += gcMillis() - gcMillisBefore;
+        }
+
+        double nanosPerRun = nanos / (double) iterations;
+        double seconds = nanos / 1e9;
+        return String.format("%12.3f %12.1f %12.1f %12.1f %8d %9d",
+                1e9 / nanosPerRun,
+                nanosPerRun / n,
+                allocated / 1e6 / seconds,
+                allocated / (double) iterations / n,
+                gcCount, gcMillis);
+    }
+
+    private static void runOnce(Algorithm algorithm, ProcessTable table) {
+        Scheduler scheduler = algorithm.factory.apply(table);
+        scheduler.setTraceSink(TraceSink.none());
+        scheduler.setReporting(false);
+        scheduler.run();
+    }
+
+    private static String fork(Map<String, String> options, long timeoutSeconds) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SchedulerBenchmark.class.getName());
+        command.add("--fork-child");
+        for (Map.Entry<String, String> option : options.entrySet())
+            command.add("--" + option.getKey() + "=" + option.getValue());
+
+        java.lang.Process child = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        StringBuilder output = new StringBuilder();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+                for (String line; (line = in.readLine()) != null; )
+                    output.append(line).append('\n');
+            } catch (IOException ignored) {
+                // the child died, reported below
+            }
+        });
+        reader.start();
+        if (!child.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            child.destroyForcibly();
+            reader.join();
+            return "timed out after " + timeoutSeconds + " s";
+        }
+        reader.join();
+        for (String line : output.toString().split("\n"))
+            if (line.startsWith("RESULT "))
+                result = line.substring("RESULT ".length());
+        return result != null ? result : "failed: " + output.toString().trim();
+    }
+
+    // n processes with the requested shape; names are left out to keep the table primitive
+    static ProcessTable workload(int n, Arrivals arrivals, Bursts bursts, Mix mix, long seed) {
+        return new WorkloadGenerator(seed)
+                .arrivals(arrivals.process.get())
+                .bursts(bursts.distribution)
+                .mix(mix.weights)
+                .priorities(WorkloadGenerator.uniform(0, 9))
+                .table(n);
+    }
+
+    // every row becomes a task using LOAD / n of the CPU, its burst every period; a job is
+    // charged its burst and two context switches of 2, as EDFScheduler's schedulability test does
+    static void periodic(ProcessTable table) {
+        for (int r = 0; r < table.size(); r++)
+            table.setPeriod(r, (int) Math.ceil((table.getBurstTime(r) + 2 * 2) * (double) table.size() / LOAD));
+    }
+
+    // two mean periods past the last arrival, so the jobs released grow with n and not with the hyperperiod
+    private static int horizon(ProcessTable table) {
+        int lastArrival = 0;
+        for (int r = 0; r < table.size(); r++)
+            lastArrival = Math.max(lastArrival, table.getArrivalTime(r));
+        return lastArrival + (int) (2 * table.size() * MEAN_BURST / LOAD);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--"))
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            int eq = arg.indexOf('=');
+            if (eq < 0)
+                options.put(arg.substring(2), "true");
+            else
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static <E extends Enum<E>> List<E> list(Map<String, String> options, String key, Class<E> type, E[] defaults) {
+        String value = options.get(key);
+        if (value == null)
+            return Arrays.asList(defaults);
+        List<E> values = new ArrayList<>();
+        for (String name : value.split(","))
+            values.add(Enum.valueOf(type, name.trim().toUpperCase()));
+        return values;
+    }
+}
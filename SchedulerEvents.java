@@ -0,0 +1,239 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/*
+   Java Flight Recorder events of MQScheduler and MLFQScheduler
+
+      java -XX:StartFlightRecording:filename=run.jfr,settings=profile ...
+      jfr print --categories Scheduler run.jfr
+
+   Every event carries the simulated time, the process id and the queue
+   index, so a recording lines simulated CPU time up with real CPU time:
+   Dispatch is a duration event spanning the real time one slice took to
+   simulate. A listener tracks whether any recording is running, so with
+   none every helper below returns after one volatile read and the hot
+   paths do not even allocate the event. QueueDepth is emitted per queue at
+   every dispatch; disable it in the settings when that is too much.
+*/
+final class SchedulerEvents {
+
+    private static volatile boolean recording;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                update(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                update(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private SchedulerEvents() {
+    }
+
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording r : recorder.getRecordings())
+            running |= r.getState() == RecordingState.RUNNING;
+        recording = running;
+    }
+
+    @Name("scheduler.Dispatch")
+    @Label("Dispatch")
+    @Category("Scheduler")
+    @Description("A process given the CPU for one slice; the duration is the real time the slice took to simulate")
+    @StackTrace(false)
+    static final class Dispatch extends Event {
+        @Label("Scheduler")
+        String scheduler;
+        @Label("Simulated Time")
+        @Description("Start of the slice in simulated time units")
+        long simulatedTime;
+        @Label("Process Id")
+        int processId;
+        @Label("Queue")
+        int queue;
+        @Label("Slice")
+        @Description("Simulated time units run")
+        int slice;
+        @Label("Remaining")
+        @Description("Burst left after the slice")
+        int remaining;
+    }
+
+    @Name("scheduler.Preemption")
+    @Label("Preemption")
+    @Category("Scheduler")
+    @Description("A process taken off the CPU before it finished")
+    @StackTrace(false)
+    static final class Preemption extends Event {
+        @Label("Scheduler")
+        String scheduler;
+        @Label("Simulated Time")
+        long simulatedTime;
+        @Label("Process Id")
+        int processId;
+        @Label("Queue")
+        int queue;
+        @Label("Reason")
+        String reason;
+        @Label("Remaining")
+        int remaining;
+    }
+
+    @Name("scheduler.ContextSwitch")
+    @Label("Context Switch")
+    @Category("Scheduler")
+    @StackTrace(false)
+    static final class ContextSwitch extends Event {
+        @Label("Scheduler")
+        String scheduler;
+        @Label("Simulated Time")
+        long simulatedTime;
+        @Label("Process Id")
+        @Description("Process switched to")
+        int processId;
+        @Label("Previous Process Id")
+        @Description("Process switched from, -1 when not known")
+        int previousProcessId;
+        @Label("Cost")
+        @Description("Simulated time units charged")
+        int cost;
+    }
+
+    @Name("scheduler.QueueChange")
+    @Label("Queue Change")
+    @Category("Scheduler")
+    @Description("MLFQ demotion after a used-up quantum, or a priority boost back to the top queue")
+    @StackTrace(false)
+    static final class QueueChange extends Event {
+        @Label("Scheduler")
+        String scheduler;
+        @Label("Simulated Time")
+        long simulatedTime;
+        @Label("Process Id")
+        int processId;
+        @Label("Queue")
+        @Description("Queue the process moved to")
+        int queue;
+        @Label("Previous Queue")
+        int previousQueue;
+        @Label("Kind")
+        String kind;
+    }
+
+    @Name("scheduler.QueueDepth")
+    @Label("Queue Depth")
+    @Category("Scheduler")
+    @Description("Processes ready in one queue at a dispatch")
+    @StackTrace(false)
+    static final class QueueDepth extends Event {
+        @Label("Scheduler")
+        String scheduler;
+        @Label("Simulated Time")
+        long simulatedTime;
+        @Label("Queue")
+        int queue;
+        @Label("Queue Name")
+        String queueName;
+        @Label("Depth")
+        int depth;
+    }
+
+    // begun before the slice is simulated, finished by dispatched(); null while nothing records
+    static Dispatch beginDispatch() {
+        if (!recording)
+            return null;
+        Dispatch event = new Dispatch();
+        event.begin();
+        return event;
+    }
+
+    static void dispatched(Dispatch event, String scheduler, long simulatedTime, int processId, int queue,
+                           int slice, int remaining) {
+        if (event == null)
+            return;
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.scheduler = scheduler;
+        event.simulatedTime = simulatedTime;
+        event.processId = processId;
+        event.queue = queue;
+        event.slice = slice;
+        event.remaining = remaining;
+        event.commit();
+    }
+
+    static void preempted(String scheduler, long simulatedTime, int processId, int queue, String reason, int remaining) {
+        if (!recording)
+            return;
+        Preemption event = new Preemption();
+        if (!event.isEnabled())
+            return;
+        event.scheduler = scheduler;
+        event.simulatedTime = simulatedTime;
+        event.processId = processId;
+        event.queue = queue;
+        event.reason = reason;
+        event.remaining = remaining;
+        event.commit();
+    }
+
+    static void contextSwitch(String scheduler, long simulatedTime, int processId, int previousProcessId, int cost) {
+        if (!recording)
+            return;
+        ContextSwitch event = new ContextSwitch();
+        if (!event.isEnabled())
+            return;
+        event.scheduler = scheduler;
+        event.simulatedTime = simulatedTime;
+        event.processId = processId;
+        event.previousProcessId = previousProcessId;
+        event.cost = cost;
+        event.commit();
+    }
+
+    static void queueChange(String scheduler, long simulatedTime, int processId, int previousQueue, int queue, String kind) {
+        if (!recording)
+            return;
+        QueueChange event = new QueueChange();
+        if (!event.isEnabled())
+            return;
+        event.scheduler = scheduler;
+        event.simulatedTime = simulatedTime;
+        event.processId = processId;
+        event.previousQueue = previousQueue;
+        event.queue = queue;
+        event.kind = kind;
+        event.commit();
+    }
+
+    // true while a recording wants QueueDepth, so callers can skip the loop over their queues
+    static boolean queueDepthEnabled() {
+        return recording && new QueueDepth().isEnabled();
+    }
+
+    static void queueDepth(String scheduler, long simulatedTime, int queue, String queueName, int depth) {
+        QueueDepth event = new QueueDepth();
+        event.scheduler = scheduler;
+        event.simulatedTime = simulatedTime;
+        event.queue = queue;
+        event.queueName = queueName;
+        event.depth = depth;
+        event.commit();
+    }
+}
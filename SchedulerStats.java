@@ -0,0 +1,108 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/*
+   online statistics of finished processes: waiting, turnaround and response
+   time, overall and per ProcessType. Schedulers record each process once, as
+   it finishes, so memory stays constant however many processes run through.
+*/
+public class SchedulerStats {
+
+    public enum Metric { WAITING, TURNAROUND, RESPONSE }
+
+    private static final ProcessType[] TYPES = ProcessType.values();
+    private static final Metric[] METRICS = Metric.values();
+    private static final double[] PERCENTILES = { 50, 95, 99, 99.9 };
+
+    // [metric][0] is every process, [metric][1 + type ordinal] one type
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[METRICS.length][TYPES.length + 1];
+
+    public SchedulerStats() {
+        for (int m = 0; m < METRICS.length; m++)
+            for (int t = 0; t <= TYPES.length; t++)
+                histograms[m][t] = new LatencyHistogram();
+    }
+
+    public void record(ProcessTable table, int row) {
+        int type = 1 + table.getType(row).ordinal();
+        record(Metric.WAITING, type, table.getWaitingTime(row));
+        record(Metric.TURNAROUND, type, table.getTurnaroundTime(row));
+        record(Metric.RESPONSE, type, table.getResponseTime(row));
+    }
+
+    // for schedulers whose finished units are not table rows, e.g. the jobs of a periodic task
+    public void record(ProcessType type, int waiting, int turnaround, int response) {
+        int t = 1 + type.ordinal();
+        record(Metric.WAITING, t, waiting);
+        record(Metric.TURNAROUND, t, turnaround);
+        record(Metric.RESPONSE, t, response);
+    }
+
+    private void record(Metric metric, int type, int value) {
+        histograms[metric.ordinal()][0].record(value);
+        histograms[metric.ordinal()][type].record(value);
+    }
+
+    public SchedulerStats copy() {
+        SchedulerStats copy = new SchedulerStats();
+        copy.add(this);
+        return copy;
+    }
+
+    public void add(SchedulerStats other) {
+        for (int m = 0; m < METRICS.length; m++)
+            for (int t = 0; t <= TYPES.length; t++)
+                histograms[m][t].add(other.histograms[m][t]);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        for (LatencyHistogram[] byType : histograms)
+            for (LatencyHistogram h : byType)
+                h.writeTo(out);
+    }
+
+    // replaces everything recorded so far
+    public void readFrom(DataInput in) throws IOException {
+        for (LatencyHistogram[] byType : histograms)
+            for (LatencyHistogram h : byType)
+                h.readFrom(in);
+    }
+
+    public long getCount() {
+        return histograms[0][0].getCount();
+    }
+
+    public LatencyHistogram get(Metric metric) {
+        return histograms[metric.ordinal()][0];
+    }
+
+    public LatencyHistogram get(Metric metric, ProcessType type) {
+        return histograms[metric.ordinal()][1 + type.ordinal()];
+    }
+
+    public void print(PrintStream out) {
+        out.println(String.format("%-12s %-13s %-10s %-10s %-10s %-8s %-8s %-8s %-8s %-8s",
+                "Metric", "Type", "Count", "Mean", "Std_dev", "p50", "p95", "p99", "p99.9", "Max"));
+        out.println("-".repeat(104));
+        for (Metric metric : METRICS) {
+            printRow(out, metric.name(), "ALL", get(metric));
+            for (ProcessType type : TYPES) {
+                LatencyHistogram h = get(metric, type);
+                if (h.getCount() > 0)
+                    printRow(out, "", type.toString(), h);
+            }
+        }
+        out.println("-".repeat(104));
+    }
+
+    private static void printRow(PrintStream out, String metric, String type, LatencyHistogram h) {
+        StringBuilder row = new StringBuilder(String.format("%-12s %-13s %-10d %-10.2f %-10.2f",
+                metric, type, h.getCount(), h.getMean(), h.getStdDev()));
+        for (double p : PERCENTILES)
+            row.append(String.format(" %-8d", h.getPercentile(p)));
+        row.append(String.format(" %-8d", h.getMax()));
+        out.println(row);
+    }
+}
@@ -0,0 +1,122 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/*
+   achieved against ticket-entitled CPU time, for LotteryScheduler,
+   StrideScheduler and CFSScheduler (its weights are the tickets there)
+
+   While a process is runnable every time unit of CPU is owed to the
+   runnable processes in proportion to their tickets. Keeping each
+   process's entitlement up to date would cost O(n) per slice, so the
+   account keeps one running total instead, the entitlement of a single
+   ticket since the start; a process is entitled to its tickets times the
+   growth of that total between its join and its leave, O(1) at both ends.
+   Per type the entitlement is kept directly, O(types) per slice.
+
+   The share error of a process is |CPU time - entitlement| in time units,
+   not relative to the entitlement: a job shorter than a quantum can be
+   owed a fraction of a unit and still has to run to its end. A perfectly
+   proportional scheduler makes it 0; stride scheduling keeps it near a
+   quantum, while lottery scheduling lets it grow with the square root of
+   the number of draws.
+*/
+final class ShareAccounting {
+
+    private static final ProcessType[] TYPES = ProcessType.values();
+
+    private long totalTickets;
+    private double perTicket;          // CPU time one ticket was owed since the start
+    private double[] joinedAt;         // perTicket when each row became runnable
+
+    // per ProcessType ordinal
+    private final long[] cpuTime = new long[TYPES.length];
+    private final double[] entitled = new double[TYPES.length];
+    private final long[] ticketsByType = new long[TYPES.length];
+    private final int[] finishedByType = new int[TYPES.length];
+
+    // per process, recorded when it leaves
+    private final LatencyHistogram error = new LatencyHistogram();   // rounded share error
+    private double absoluteError;
+    private long left;
+
+    ShareAccounting(int rows) {
+        this.joinedAt = new double[Math.max(rows, 1)];
+    }
+
+    void join(int row, int tickets, ProcessType type) {
+        if (row >= joinedAt.length)
+            joinedAt = Arrays.copyOf(joinedAt, Math.max(row + 1, joinedAt.length * 2));
+        joinedAt[row] = perTicket;
+        totalTickets += tickets;
+        ticketsByType[type.ordinal()] += tickets;
+    }
+
+    // type ran for runFor time units, owed to every runnable process by its tickets
+    void ran(ProcessType type, int runFor) {
+        cpuTime[type.ordinal()] += runFor;
+        for (int t = 0; t < TYPES.length; t++)
+            entitled[t] += runFor * (double) ticketsByType[t] / totalTickets;
+        perTicket += runFor / (double) totalTickets;
+    }
+
+    // row stops being runnable after getting cpu time units in total
+    void leave(int row, int tickets, ProcessType type, long cpu) {
+        double owed = tickets * (perTicket - joinedAt[row]);
+        double difference = Math.abs(cpu - owed);
+        absoluteError += difference;
+        left++;
+        error.record((int) Math.min(Integer.MAX_VALUE, Math.round(difference)));
+        totalTickets -= tickets;
+        ticketsByType[type.ordinal()] -= tickets;
+        finishedByType[type.ordinal()]++;
+    }
+
+    // CPU time given to processes of one type
+    long getCpuTime(ProcessType type) {
+        return cpuTime[type.ordinal()];
+    }
+
+    // CPU time the type got over the time its tickets entitled it to; 0 when it never ran
+    double getShareRatio(ProcessType type) {
+        int t = type.ordinal();
+        return entitled[t] == 0 ? 0.0 : cpuTime[t] / entitled[t];
+    }
+
+    // mean |CPU time - entitlement| per process, in time units
+    double getMeanAbsoluteError() {
+        return left == 0 ? 0.0 : absoluteError / left;
+    }
+
+    // per process share error, rounded to time units
+    LatencyHistogram getShareError() {
+        return error;
+    }
+
+    // title is the 48-column line of the box; entitledLabel heads the entitled share column
+    void print(PrintStream report, long busyTime, String title, String entitledLabel) {
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║" + title + "║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        report.println(String.format("%-12s %10s %12s %10s %12s %12s", "Type", "Finished", "CPU time", "CPU share", entitledLabel, "Share ratio"));
+        report.println("-".repeat(73));
+        double lowest = Double.MAX_VALUE;
+        double highest = 0;
+        for (ProcessType type : TYPES) {
+            int t = type.ordinal();
+            double share = busyTime == 0 ? 0.0 : cpuTime[t] * 100.0 / busyTime;
+            double fair = busyTime == 0 ? 0.0 : entitled[t] * 100.0 / busyTime;
+            double ratio = getShareRatio(type);
+            report.println(String.format("%-12s %10d %12d %9.2f%% %11.2f%% %12.3f", type, finishedByType[t], cpuTime[t], share, fair, ratio));
+            if (ratio > 0) {
+                lowest = Math.min(lowest, ratio);
+                highest = Math.max(highest, ratio);
+            }
+        }
+        report.println("-".repeat(73));
+        report.println(String.format("%-25s = %.3f", "Share ratio spread", highest >= lowest ? highest - lowest : 0.0));
+        report.println(String.format("%-25s = %.2f", "Mean |CPU - entitled|", getMeanAbsoluteError()));
+        if (error.getCount() > 0)
+            report.println(String.format("%-25s = %d / %d / %d / %d", "Share err p50/95/99/max",
+                    error.getPercentile(50), error.getPercentile(95), error.getPercentile(99), error.getMax()));
+    }
+}
@@ -0,0 +1,134 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/*
+   everything one simulation run owns, so many runs can share a JVM
+
+      SimulationContext context = SimulationContext.headless();
+      ProcessTable table = new ProcessTable();
+      context.add(table, "P1", 0, 12, 1, ProcessType.BATCH);
+      Scheduler s = new FCFS(table);
+      s.setContext(context);
+      s.run();
+      context.getSummary();
+
+   A context hands out process ids, carries the trace sink and the stream
+   the stats report goes to, and collects the finished-process statistics
+   and the CPU accounting of the run. Nothing in it is static and nothing
+   is shared with another context, so runs on a thread pool cannot collide
+   on ids or write into each other's output, and the same workload gives
+   the same results whichever thread runs it. Use one context per run, and
+   one thread per context at a time.
+
+   Every Scheduler starts with a context of its own that traces and
+   reports to the console, which is how the schedulers behaved before.
+   A scheduler resumed from a Checkpoint already holds the statistics of
+   the snapshot, so its context goes to resume(file, context) instead.
+*/
+public final class SimulationContext {
+
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private int nextProcessId = 1;
+    private TraceSink trace;
+    private PrintStream report;
+    private boolean reporting;
+    private final SchedulerStats stats = new SchedulerStats();
+
+    // clock and accounting as of the end of the run
+    private int time;
+    private int busyTime;
+    private int idleTime;
+    private int ctxSwitchTime;
+    private RunSummary summary;
+
+    // console trace and report, as an interactive run
+    public SimulationContext() {
+        this(new ConsoleTraceSink(), System.out, true);
+    }
+
+    public SimulationContext(TraceSink trace, PrintStream report, boolean reporting) {
+        this.trace = trace;
+        this.report = report;
+        this.reporting = reporting;
+    }
+
+    // no trace, no report; for sweeps, benchmarks and services hosting many runs
+    public static SimulationContext headless() {
+        return new SimulationContext(TraceSink.none(), DISCARD, false);
+    }
+
+    // ids count up from 1 within this context only
+    public int nextProcessId() {
+        return nextProcessId++;
+    }
+
+    // adds a process with the next id of this context; returns its row
+    public int add(ProcessTable table, String name, int arrivalTime, int burstTime, int priority, ProcessType type) {
+        return table.add(name, nextProcessId(), arrivalTime, burstTime, priority, type);
+    }
+
+    // a standalone process, numbered by this context instead of the global Process counter
+    public Process newProcess(String name, int arrivalTime, int burstTime, int priority, ProcessType type) {
+        return Process.unbound(name, nextProcessId(), arrivalTime, burstTime, priority, type);
+    }
+
+    public TraceSink getTrace() {
+        return trace;
+    }
+
+    public void setTrace(TraceSink trace) {
+        this.trace = trace;
+    }
+
+    public PrintStream getReport() {
+        return report;
+    }
+
+    public void setReport(PrintStream report) {
+        this.report = report;
+    }
+
+    public boolean isReporting() {
+        return reporting;
+    }
+
+    public void setReporting(boolean reporting) {
+        this.reporting = reporting;
+    }
+
+    public SchedulerStats getStats() {
+        return stats;
+    }
+
+    // called by the scheduler once its run is over
+    void finish(int time, int busyTime, int idleTime, int ctxSwitchTime) {
+        this.time = time;
+        this.busyTime = busyTime;
+        this.idleTime = idleTime;
+        this.ctxSwitchTime = ctxSwitchTime;
+        this.summary = RunSummary.of(stats, busyTime, idleTime, ctxSwitchTime);
+    }
+
+    // simulated time at the end of the run; the makespan for SMP runs
+    public int getTime() {
+        return time;
+    }
+
+    public int getBusyTime() {
+        return busyTime;
+    }
+
+    public int getIdleTime() {
+        return idleTime;
+    }
+
+    public int getCtxSwitchTime() {
+        return ctxSwitchTime;
+    }
+
+    // null until the run completes
+    public RunSummary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.LinkedList;
+import java.util.SplittableRandom;
+
+/*
+   stride scheduling: lottery shares without the lottery
+
+      new StrideScheduler(table)                           // quantum 4, tickets by priority, seed 42
+      new StrideScheduler(table, 2, Tickets.TYPE, 7)
+
+   Every runnable process has a stride, STRIDE1 over its tickets (see
+   Tickets), and a pass. The process with the smallest pass runs for a
+   quantum and its pass grows by its stride, or by the part of it it used
+   when it finishes early, so a process with twice the tickets runs twice
+   as often and its CPU time never strays more than about a quantum from
+   its share. Passes are keyed in an IndexedMinHeap, so a pick is O(log n).
+
+   A newcomer starts at the smallest pass in the queue plus a random part
+   of its stride, from a seeded SplittableRandom: it cannot claim CPU for
+   the time it was not there, and processes arriving together do not run
+   in lockstep by row. The same seed replays the same run.
+
+   The report matches LotteryScheduler's (see ShareAccounting).
+*/
+public class StrideScheduler extends Scheduler {
+
+    private static final long STRIDE1 = 1L << 32;
+
+    private final ProcessTable table;
+    private final int quantum;
+    private final Tickets tickets;
+    private final long seed;
+    private final int contextSwitch = 2;
+
+    private int currentTime;
+    private int busyTime;
+    private int idleTime;
+    private int ctxSwitchTime;
+
+    private long[] pass;          // per row
+    private long[] stride;        // per row
+    private long globalPass;      // never decreases
+    private ShareAccounting share = new ShareAccounting(0);
+
+    public StrideScheduler(LinkedList<Process> processes) {
+        this(ProcessTable.of(processes));
+    }
+
+    public StrideScheduler(ProcessTable table) {
+        this(table, 4);
+    }
+
+    public StrideScheduler(ProcessTable table, int quantum) {
+        this(table, quantum, Tickets.PRIORITY, 42);
+    }
+
+    public StrideScheduler(ProcessTable table, int quantum, Tickets tickets, long seed) {
+        if (quantum < 1)
+            throw new IllegalArgumentException("quantum must be at least 1: " + quantum);
+        this.table = table;
+        this.quantum = quantum;
+        this.tickets = tickets;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run() {
+        trace.message("╔════════════════════════════════════════════════╗");
+        trace.message("║         Stride Scheduling Algorithm Trace      ║");
+        trace.message("╚════════════════════════════════════════════════╝\n");
+
+        int n = table.size();
+        int[] arrivals = table.rowsByArrival();
+        int next = 0;
+        pass = new long[n];
+        stride = new long[n];
+        SplittableRandom random = new SplittableRandom(seed);
+        share = new ShareAccounting(n);
+
+        // smallest pass first; ties go to the earlier row
+        IndexedMinHeap ready = new IndexedMinHeap(n, (a, b) -> {
+            int c = Long.compare(pass[a], pass[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        int previous = -1;
+        int finished = 0;
+
+        while (finished < n) {
+            while (next < n && table.getArrivalTime(arrivals[next]) <= currentTime) {
+                int p = arrivals[next++];
+                int held = tickets.of(table, p);
+                stride[p] = STRIDE1 / held;
+                pass[p] = globalPass + random.nextLong(stride[p]);
+                share.join(p, held, table.getType(p));
+                ready.add(p);
+            }
+
+            if (ready.isEmpty()) {
+                // jump straight to the next arrival
+                int until = table.getArrivalTime(arrivals[next]);
+                idleTime += until - currentTime;
+                currentTime = until;
+                continue;
+            }
+
+            int p = ready.poll();
+            if (previous != -1 && previous != p) {
+                trace.contextSwitch(currentTime, currentTime + contextSwitch);
+                ctxSwitchTime += contextSwitch;
+                currentTime += contextSwitch;
+            }
+            previous = p;
+
+            if (table.getStartedAt(p) == -1) {
+                table.setStartedAt(p, currentTime);
+                table.setResponseTime(p, currentTime - table.getArrivalTime(p));
+            }
+
+            int runFor = Math.min(quantum, table.getRemainingTime(p));
+            int start = currentTime;
+            table.setRemainingTime(p, table.getRemainingTime(p) - runFor);
+            busyTime += runFor;
+            currentTime += runFor;
+            share.ran(table.getType(p), runFor);
+            pass[p] += stride[p] * runFor / quantum;
+            trace.execution(start, currentTime, table, p, null);
+
+            if (table.end(p)) {
+                table.setFinishedAt(p, currentTime);
+                table.calculateAllTimes(p);
+                recordFinished(table, p);
+                share.leave(p, tickets.of(table, p), table.getType(p), table.getBurstTime(p));
+                finished++;
+            } else {
+                ready.add(p);
+            }
+
+            if (!ready.isEmpty())
+                globalPass = Math.max(globalPass, pass[ready.peek()]);
+        }
+
+        summarize(busyTime, idleTime, ctxSwitchTime);
+        if (reporting)
+            printStats();
+    }
+
+    // CPU time the type got over the time its tickets entitled it to; 0 when it never ran
+    public double getShareRatio(ProcessType type) {
+        return share.getShareRatio(type);
+    }
+
+    // per process |CPU time - entitlement|, rounded to time units
+    public LatencyHistogram getShareError() {
+        return share.getShareError();
+    }
+
+    private void printStats() {
+        trace.flush();
+        report.println("╔════════════════════════════════════════════════╗");
+        report.println("║         Stride Scheduling Algorithm Stats      ║");
+        report.println("╚════════════════════════════════════════════════╝\n");
+        super.printStatsDetials(table, busyTime, idleTime, ctxSwitchTime);
+        share.print(report, busyTime, "            Share vs Ticket Share               ", "Ticket share");
+        report.println(String.format("%-25s = %d / %s / %d", "Quantum / tickets / seed", quantum, tickets, seed));
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+   the process table side of a Checkpoint, copied incrementally
+
+      snapshot = new TableSnapshot(table, level, quantumUsed);   // before the loop: one full copy
+      snapshot.touch(row);                                       // row is about to change
+      TableSnapshot.Delta delta = snapshot.take(table, level, quantumUsed);
+      checkpoint.save(KIND, out -> { snapshot.apply(delta); snapshot.writeTo(out); ... });
+
+   The checkpoint writer thread keeps a shadow copy of the table and of any
+   per-row columns of the scheduler (extra). The scheduling thread only
+   hands it what changed since the last snapshot: the rows added since, in
+   full, and the mutable fields (remaining, started, finished, response,
+   waiting and turnaround times, and the extra columns) of the rows it
+   touched. So a snapshot holds the loop up for the work done since the
+   previous one, not for the size of the table. The full copy happens once,
+   when the snapshot is created.
+
+   A scheduler must touch() a row before it changes any mutable field of it;
+   rows added to the table need no touch. apply() must run on the writer
+   thread, in the order the deltas were taken, which a Checkpoint
+   guarantees by writing one snapshot at a time.
+*/
+final class TableSnapshot {
+
+    private static final int FIELDS = 6;   // mutable ProcessTable fields per touched row
+
+    private final ProcessTable shadow;      // writer thread only, after construction
+    private final int[][] shadowExtra;
+    private int copied;                     // live rows already in the shadow or a delta
+
+    // rows touched since the last take(), each once
+    private int[] touched = new int[64];
+    private int touchedCount;
+    private long[] marked = new long[1];
+
+    // what changed between two snapshots
+    static final class Delta {
+        final ProcessTable added;
+        final int[] rows;
+        final int[] values;    // FIELDS plus one per extra column, per touched row
+
+        private Delta(ProcessTable added, int[] rows, int[] values) {
+            this.added = added;
+            this.rows = rows;
+            this.values = values;
+        }
+    }
+
+    TableSnapshot(ProcessTable table, int[]... extra) {
+        this.shadow = table.copy();
+        this.shadowExtra = new int[extra.length][];
+        for (int i = 0; i < extra.length; i++)
+            shadowExtra[i] = extra[i].clone();
+        this.copied = table.size();
+    }
+
+    void touch(int row) {
+        int word = row >>> 6;
+        if (word >= marked.length)
+            marked = Arrays.copyOf(marked, Math.max(word + 1, marked.length * 2));
+        long bit = 1L << row;
+        if ((marked[word] & bit) != 0)
+            return;
+        marked[word] |= bit;
+        if (touchedCount == touched.length)
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+        touched[touchedCount++] = row;
+    }
+
+    // the changes since the last take(), on the scheduling thread; extra as given to the constructor
+    Delta take(ProcessTable table, int[]... extra) {
+        ProcessTable added = table.copy(copied, table.size());
+        copied = table.size();
+
+        int width = FIELDS + extra.length;
+        int[] rows = Arrays.copyOf(touched, touchedCount);
+        int[] values = new int[touchedCount * width];
+        for (int i = 0; i < touchedCount; i++) {
+            int row = rows[i];
+            int at = i * width;
+            values[at] = table.getRemainingTime(row);
+            values[at + 1] = table.getStartedAt(row);
+            values[at + 2] = table.getFinishedAt(row);
+            values[at + 3] = table.getResponseTime(row);
+            values[at + 4] = table.getWaitingTime(row);
+            values[at + 5] = table.getTurnaroundTime(row);
+            for (int e = 0; e < extra.length; e++)
+                values[at + FIELDS + e] = extra[e][row];
+            marked[row >>> 6] &= ~(1L << row);
+        }
+        touchedCount = 0;
+        return new Delta(added, rows, values);
+    }
+
+    // on the writer thread
+    void apply(Delta delta) {
+        shadow.addAll(delta.added);
+        int width = FIELDS + shadowExtra.length;
+        for (int i = 0; i < delta.rows.length; i++) {
+            int row = delta.rows[i];
+            int at = i * width;
+            shadow.setRemainingTime(row, delta.values[at]);
+            shadow.setStartedAt(row, delta.values[at + 1]);
+            shadow.setFinishedAt(row, delta.values[at + 2]);
+            shadow.setResponseTime(row, delta.values[at + 3]);
+            shadow.setWaitingTime(row, delta.values[at + 4]);
+            shadow.setTurnaroundTime(row, delta.values[at + 5]);
+            for (int e = 0; e < shadowExtra.length; e++)
+                shadowExtra[e][row] = delta.values[at + FIELDS + e];
+        }
+    }
+
+    // the shadow table, as ProcessTable.writeTo; on the writer thread
+    void writeTo(DataOutput out) throws IOException {
+        shadow.writeTo(out);
+    }
+
+    // a shadow per-row column, as of the last apply(); on the writer thread
+    int[] extra(int i) {
+        return shadowExtra[i];
+    }
+}
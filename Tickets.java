@@ -0,0 +1,19 @@
+/*
+   how many lottery or stride tickets a process holds
+
+     PRIORITY   the nice-style weight of its priority, as CFSScheduler
+                weighs it: 1024 at priority 0, about 25% more CPU per step
+                towards -20 and 25% less per step towards 19
+     TYPE       by process type, each type twice the next:
+                REAL_TIME 800, SYSTEM 400, INTERACTIVE 200, BATCH 100
+*/
+public enum Tickets {
+    PRIORITY,
+    TYPE;
+
+    public int of(ProcessTable table, int row) {
+        if (this == PRIORITY)
+            return CFSScheduler.weight(table.getPriority(row));
+        return 800 >> table.getType(row).getQueueIndex();
+    }
+}
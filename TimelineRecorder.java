@@ -0,0 +1,407 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+   Gantt timeline of a run, kept compact enough for 100M segments
+
+      TimelineRecorder timeline = new TimelineRecorder();
+      scheduler.setTraceSink(timeline);
+      scheduler.run();
+      timeline.writeCsv(Path.of("gantt.csv"));
+
+   As a TraceSink it takes the execution slices and context switches every
+   scheduler already emits. Each queue or CPU label is a lane. Back to back
+   slices of one process in one lane merge into a single segment, and time
+   a lane spends idle is not a segment at all but the gap before the next
+   one, so a FCFS run costs one segment per process and an RR run one per
+   slice that actually changed process.
+
+   Segments are packed into 1 MB byte pages, two or three bytes each:
+   a header byte (kind, lane change, gap, short durations), then varints for
+   the gap, longer durations and the process id as a difference to the
+   previous one. Reading goes through cursor(), which hands idle gaps back
+   as IDLE segments. Segments are in time order within a lane.
+*/
+public class TimelineRecorder implements TraceSink {
+
+    public enum Kind { RUN, SWITCH, IDLE }
+
+    private static final int PAGE_BITS = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_LANES = 256;
+    private static final int INLINE_DURATIONS = 15;   // 0..14 fit in the header byte
+    private static final int MAGIC = 0x5347544C;      // "SGTL"
+    private static final int VERSION = 1;
+
+    // header byte
+    private static final int SWITCH_BIT = 1;
+    private static final int LANE_BIT = 1 << 1;
+    private static final int GAP_BIT = 1 << 2;
+    private static final int DURATION_SHIFT = 4;
+
+    private byte[][] pages = new byte[8][];
+    private long length;            // bytes written
+    private long segments;          // records written
+
+    private final List<String> laneNames = new ArrayList<>();
+    private final Map<String, Integer> laneIds = new HashMap<>();     // by name
+    private final Map<String, Integer> labelLanes = new HashMap<>();  // by the label as the scheduler passes it
+    private final int[] laneEnd = new int[MAX_LANES];
+
+    // encoder state
+    private int lastLane;
+    private int lastProcessId;
+
+    // the last run of every lane, still open for merging
+    private final boolean[] open = new boolean[MAX_LANES];
+    private final int[] openStart = new int[MAX_LANES];
+    private final int[] openEnd = new int[MAX_LANES];
+    private final int[] openProcessId = new int[MAX_LANES];
+
+    // a context switch waits for the execution after it to learn its lane
+    private boolean switchPending;
+    private int switchStart;
+    private int switchEnd;
+
+    public TimelineRecorder() {
+        lane(null);   // lane 0 is the CPU of single-queue schedulers
+    }
+
+    @Override
+    public void execution(int start, int end, ProcessTable table, int row, String queue) {
+        int lane = lane(queue);
+        int processId = table.getProcessId(row);
+        if (!switchPending && open[lane] && openProcessId[lane] == processId && openEnd[lane] == start) {
+            openEnd[lane] = end;
+            return;
+        }
+        close(lane);
+        if (switchPending) {
+            switchPending = false;
+            append(lane, Kind.SWITCH, switchStart, switchEnd, 0);
+        }
+        open[lane] = true;
+        openStart[lane] = start;
+        openEnd[lane] = end;
+        openProcessId[lane] = processId;
+    }
+
+    @Override
+    public void contextSwitch(int start, int end) {
+        if (switchPending)
+            append(lastLane, Kind.SWITCH, switchStart, switchEnd, 0);
+        switchPending = true;
+        switchStart = start;
+        switchEnd = end;
+    }
+
+    @Override
+    public void message(String text) {
+    }
+
+    // executions only; no scheduler should build status lines for this sink
+    @Override
+    public boolean isMessageEnabled() {
+        return false;
+    }
+
+    // writes out the open runs; called by the exports, and by schedulers through flush()
+    @Override
+    public void flush() {
+        for (int lane = 0; lane < laneNames.size(); lane++)
+            close(lane);
+        if (switchPending) {
+            switchPending = false;
+            append(lastLane, Kind.SWITCH, switchStart, switchEnd, 0);
+        }
+    }
+
+    private void close(int lane) {
+        if (!open[lane])
+            return;
+        open[lane] = false;
+        append(lane, Kind.RUN, openStart[lane], openEnd[lane], openProcessId[lane]);
+    }
+
+    private int lane(String label) {
+        Integer id = labelLanes.get(label);
+        if (id == null) {
+            // labels are padded for the console; "Q0     queue" is lane "Q0 queue"
+            id = laneNamed(label == null ? "cpu" : label.trim().replaceAll("\\s+", " "));
+            labelLanes.put(label, id);
+        }
+        return id;
+    }
+
+    private int laneNamed(String name) {
+        Integer id = laneIds.get(name);
+        if (id != null)
+            return id;
+        if (laneNames.size() == MAX_LANES)
+            throw new IllegalStateException("a timeline holds at most " + MAX_LANES + " lanes");
+        laneIds.put(name, laneNames.size());
+        laneNames.add(name);
+        return laneNames.size() - 1;
+    }
+
+    private void append(int lane, Kind kind, int start, int end, int processId) {
+        int gap = start - laneEnd[lane];
+        int duration = end - start;
+        int header = (kind == Kind.SWITCH ? SWITCH_BIT : 0)
+                | (lane != lastLane ? LANE_BIT : 0)
+                | (gap != 0 ? GAP_BIT : 0)
+                | (duration >= 0 && duration < INLINE_DURATIONS ? duration : INLINE_DURATIONS) << DURATION_SHIFT;
+        put((byte) header);
+        if (lane != lastLane)
+            put((byte) lane);
+        if (gap != 0)
+            putVarint(zigzag(gap));
+        if (duration < 0 || duration >= INLINE_DURATIONS)
+            putVarint(zigzag(duration - INLINE_DURATIONS));
+        if (kind == Kind.RUN) {
+            putVarint(zigzag(processId - lastProcessId));
+            lastProcessId = processId;
+        }
+        lastLane = lane;
+        laneEnd[lane] = end;
+        segments++;
+    }
+
+    private void put(byte b) {
+        int page = (int) (length >>> PAGE_BITS);
+        if (page == pages.length)
+            pages = Arrays.copyOf(pages, pages.length * 2);
+        if (pages[page] == null)
+            pages[page] = new byte[PAGE_SIZE];
+        pages[page][(int) (length & (PAGE_SIZE - 1))] = b;
+        length++;
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        put((byte) value);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    // stored segments, not counting idle gaps
+    public long getSegmentCount() {
+        return segments;
+    }
+
+    public long getByteCount() {
+        return length;
+    }
+
+    public List<String> getLanes() {
+        return List.copyOf(laneNames);
+    }
+
+    public Cursor cursor() {
+        flush();
+        return new Cursor();
+    }
+
+    /*
+       walks the timeline: next() moves to the next segment, the getters
+       describe it; the gap before a segment comes first as an IDLE segment
+    */
+    public final class Cursor {
+        private long position;
+        private final int[] ends = new int[MAX_LANES];
+        private int lane;
+        private int previousProcessId;
+        private boolean runAfterIdle;   // the stored segment behind the IDLE just returned
+
+        private Kind kind;
+        private int start;
+        private int end;
+        private int processId = -1;
+        private int currentLane;
+
+        private Kind storedKind;
+        private int storedStart;
+        private int storedEnd;
+        private int storedProcessId;
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            if (runAfterIdle) {
+                runAfterIdle = false;
+                set(storedKind, storedStart, storedEnd, storedProcessId);
+                return true;
+            }
+            if (position == length)
+                return false;
+            int header = get() & 0xFF;
+            if ((header & LANE_BIT) != 0)
+                lane = get() & 0xFF;
+            int gap = (header & GAP_BIT) != 0 ? unzigzag(getVarint()) : 0;
+            int duration = header >>> DURATION_SHIFT;
+            if (duration == INLINE_DURATIONS)
+                duration += unzigzag(getVarint());
+            storedKind = (header & SWITCH_BIT) != 0 ? Kind.SWITCH : Kind.RUN;
+            storedStart = ends[lane] + gap;
+            storedEnd = storedStart + duration;
+            storedProcessId = -1;
+            if (storedKind == Kind.RUN) {
+                previousProcessId += unzigzag(getVarint());
+                storedProcessId = previousProcessId;
+            }
+            int idleFrom = ends[lane];
+            ends[lane] = storedEnd;
+            currentLane = lane;
+            if (gap > 0) {
+                runAfterIdle = true;
+                set(Kind.IDLE, idleFrom, storedStart, -1);
+            } else {
+                set(storedKind, storedStart, storedEnd, storedProcessId);
+            }
+            return true;
+        }
+
+        private void set(Kind kind, int start, int end, int processId) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+            this.processId = processId;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        // -1 for IDLE and SWITCH segments
+        public int getProcessId() {
+            return processId;
+        }
+
+        public int getLane() {
+            return currentLane;
+        }
+
+        public String getLaneName() {
+            return laneNames.get(currentLane);
+        }
+
+        private byte get() {
+            byte b = pages[(int) (position >>> PAGE_BITS)][(int) (position & (PAGE_SIZE - 1))];
+            position++;
+            return b;
+        }
+
+        private int getVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+        }
+
+        private int unzigzag(int value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    // start,end,kind,process_id,lane; process_id is empty for IDLE and SWITCH
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("start,end,kind,process_id,lane");
+            out.newLine();
+            Cursor c = cursor();
+            StringBuilder line = new StringBuilder(64);
+            while (c.next()) {
+                line.setLength(0);
+                line.append(c.getStart()).append(',').append(c.getEnd()).append(',').append(c.getKind()).append(',');
+                if (c.getProcessId() != -1)
+                    line.append(c.getProcessId());
+                line.append(',').append(c.getLaneName());
+                out.write(line.toString());
+                out.newLine();
+            }
+        }
+    }
+
+    // "SGTL", version, lanes, segment and byte counts, then the pages as they are in memory
+    public void writeBinary(Path file) throws IOException {
+        flush();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeShort(laneNames.size());
+            for (String lane : laneNames)
+                out.writeUTF(lane);
+            out.writeLong(segments);
+            out.writeLong(length);
+            for (long written = 0; written < length; written += PAGE_SIZE)
+                out.write(pages[(int) (written >>> PAGE_BITS)], 0, (int) Math.min(PAGE_SIZE, length - written));
+        }
+    }
+
+    public static TimelineRecorder readBinary(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a timeline");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException(file + ": unsupported timeline version " + version);
+            TimelineRecorder timeline = new TimelineRecorder();
+            timeline.laneNames.clear();
+            timeline.laneIds.clear();
+            timeline.labelLanes.clear();
+            int lanes = in.readUnsignedShort();
+            for (int i = 0; i < lanes; i++)
+                timeline.laneNamed(in.readUTF());
+            timeline.segments = in.readLong();
+            long bytes = in.readLong();
+            if (bytes < 0)
+                throw new IOException(file + ": corrupt length " + bytes);
+            int pageCount = (int) ((bytes + PAGE_SIZE - 1) >>> PAGE_BITS);
+            timeline.pages = new byte[Math.max(pageCount, 1)][];
+            for (int p = 0; p < pageCount; p++) {
+                timeline.pages[p] = new byte[PAGE_SIZE];
+                in.readFully(timeline.pages[p], 0, (int) Math.min(PAGE_SIZE, bytes - (long) p * PAGE_SIZE));
+            }
+            timeline.length = bytes;
+
+            // pick up where the encoder stopped, so more can be recorded after what was read
+            Cursor c = timeline.cursor();
+            while (c.next()) {
+                timeline.laneEnd[c.getLane()] = c.getEnd();
+                timeline.lastLane = c.getLane();
+                if (c.getProcessId() != -1)
+                    timeline.lastProcessId = c.getProcessId();
+            }
+            return timeline;
+        }
+    }
+}
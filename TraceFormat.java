@@ -0,0 +1,51 @@
+// builds the trace lines by hand so sinks do not pay for String.format per event
+final class TraceFormat {
+    private TraceFormat() {
+    }
+
+    // "time 3-7:       Process [id=2  , name=P2    , arrival=1  , burst=5  ]" + optional queue label
+    static void appendExecution(StringBuilder out, int start, int end, int id, String name,
+                                int arrival, int burst, String queue) {
+        int from = out.length();
+        out.append("time ").append(start).append('-').append(end).append(':');
+        padTo(out, from + 15);
+        out.append(" Process [id=");
+        padded(out, id, 3);
+        out.append(", name=");
+        padded(out, String.valueOf(name), 6);
+        out.append(", arrival=");
+        padded(out, arrival, 3);
+        out.append(", burst=");
+        padded(out, burst, 3);
+        out.append(']');
+        if (queue != null) {
+            out.append(' ');
+            padded(out, queue, 10);
+        }
+        out.append("\n===\n");
+    }
+
+    static void appendContextSwitch(StringBuilder out, int start, int end) {
+        int from = out.length();
+        out.append("time ").append(start).append('-').append(end).append(':');
+        padTo(out, from + 15);
+        out.append(" Context Switching\n===\n");
+    }
+
+    private static void padded(StringBuilder out, int value, int width) {
+        int from = out.length();
+        out.append(value);
+        padTo(out, from + width);
+    }
+
+    private static void padded(StringBuilder out, String value, int width) {
+        int from = out.length();
+        out.append(value);
+        padTo(out, from + width);
+    }
+
+    private static void padTo(StringBuilder out, int length) {
+        while (out.length() < length)
+            out.append(' ');
+    }
+}
@@ -0,0 +1,36 @@
+/*
+   where schedulers send their trace: execution slices, context switches and
+   free-form lines such as headers or status dumps. Schedulers check
+   isEnabled() before building anything expensive for a trace.
+*/
+public interface TraceSink extends AutoCloseable {
+
+    // row ran on the CPU over [start, end]; queue is a label such as "BATCH  queue" or null
+    void execution(int start, int end, ProcessTable table, int row, String queue);
+
+    void contextSwitch(int start, int end);
+
+    void message(String text);
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    // false when only executions and context switches are wanted, so status lines need not be built
+    default boolean isMessageEnabled() {
+        return isEnabled();
+    }
+
+    // blocks until everything emitted so far has been written out
+    default void flush() {
+    }
+
+    @Override
+    default void close() {
+        flush();
+    }
+
+    static TraceSink none() {
+        return NullTraceSink.INSTANCE;
+    }
+}
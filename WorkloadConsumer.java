@@ -0,0 +1,5 @@
+// receives parsed processes one at a time; ProcessTable::add fits directly
+@FunctionalInterface
+public interface WorkloadConsumer {
+    void accept(String name, int processId, int arrivalTime, int burstTime, int priority, ProcessType type);
+}
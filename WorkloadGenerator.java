@@ -0,0 +1,259 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+   seeded synthetic workloads, generated lazily in arrival order
+
+      WorkloadGenerator g = new WorkloadGenerator(42)
+            .arrivals(WorkloadGenerator.mmpp(20, 2, 5000, 500))
+            .bursts(WorkloadGenerator.pareto(2, 1.5))
+            .mix(1, 2, 6, 1)
+            .priorities(WorkloadGenerator.uniform(0, 9));
+      g.generate(1_000_000_000, consumer);    // constant memory
+
+   Every process is drawn when it is asked for, so the generator itself takes
+   the same few bytes for a thousand jobs or two billion. Use next() and the
+   getters to pull processes one at a time, generate() to push them into a
+   WorkloadConsumer (ProcessTable::add, MQScheduler::submit,
+   BinaryWorkload.Writer, ...) or table() to collect them. Process ids are
+   1, 2, 3, ... The same seed and settings always give the same workload.
+
+   Arrival times are ints like everywhere else, so a run stops early when
+   the clock would overflow; generate() returns how many were made.
+*/
+public class WorkloadGenerator {
+
+    // time to the next arrival; implementations may keep state, so use one per generator
+    @FunctionalInterface
+    public interface ArrivalProcess {
+        double nextGap(SplittableRandom random);
+    }
+
+    @FunctionalInterface
+    public interface IntDistribution {
+        int next(SplittableRandom random);
+    }
+
+    private static final ProcessType[] TYPES = ProcessType.values();
+
+    private final SplittableRandom random;
+    private ArrivalProcess arrivals = poisson(10 / 0.9);
+    private IntDistribution bursts = exponential(10);
+    private IntDistribution priorities = uniform(0, 9);
+    private int[] mix = { 1, 1, 1, 1 };   // REAL_TIME, SYSTEM, INTERACTIVE, BATCH
+    private int totalWeight = 4;
+
+    private double clock;
+    private int processId;
+    private int arrivalTime;
+    private int burstTime;
+    private int priority;
+    private ProcessType type;
+
+    public WorkloadGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public WorkloadGenerator arrivals(ArrivalProcess arrivals) {
+        this.arrivals = arrivals;
+        return this;
+    }
+
+    public WorkloadGenerator bursts(IntDistribution bursts) {
+        this.bursts = bursts;
+        return this;
+    }
+
+    public WorkloadGenerator priorities(IntDistribution priorities) {
+        this.priorities = priorities;
+        return this;
+    }
+
+    // relative weights of REAL_TIME, SYSTEM, INTERACTIVE and BATCH
+    public WorkloadGenerator mix(int... weights) {
+        if (weights.length != TYPES.length)
+            throw new IllegalArgumentException("expected " + TYPES.length + " weights but got " + weights.length);
+        int total = 0;
+        for (int w : weights) {
+            if (w < 0)
+                throw new IllegalArgumentException("negative weight " + w);
+            total += w;
+        }
+        if (total == 0)
+            throw new IllegalArgumentException("all weights are zero");
+        this.mix = weights.clone();
+        this.totalWeight = total;
+        return this;
+    }
+
+    // draws the next process; false once the arrival clock has run past Integer.MAX_VALUE
+    public boolean next() {
+        if (processId == Integer.MAX_VALUE)
+            return false;
+        double time = clock + arrivals.nextGap(random);
+        if (time > Integer.MAX_VALUE)
+            return false;
+        clock = time;
+        processId++;
+        arrivalTime = (int) time;
+        burstTime = bursts.next(random);
+        int pick = random.nextInt(totalWeight);
+        int t = 0;
+        while (pick >= mix[t])
+            pick -= mix[t++];
+        type = TYPES[t];
+        priority = priorities.next(random);
+        return true;
+    }
+
+    public int getProcessId() {
+        return processId;
+    }
+
+    public int getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public int getBurstTime() {
+        return burstTime;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public ProcessType getType() {
+        return type;
+    }
+
+    // the next count processes, unnamed; returns how many there were
+    public int generate(int count, WorkloadConsumer consumer) {
+        int made = 0;
+        while (made < count && next()) {
+            consumer.accept(null, processId, arrivalTime, burstTime, priority, type);
+            made++;
+        }
+        return made;
+    }
+
+    public ProcessTable table(int count) {
+        ProcessTable table = new ProcessTable(count);
+        generate(count, table::add);
+        return table;
+    }
+
+    // arrival processes
+
+    public static ArrivalProcess poisson(double meanGap) {
+        positive("mean gap", meanGap);
+        return random -> exponentialSample(random, meanGap);
+    }
+
+    /*
+       two-state Markov-modulated Poisson process: calm stretches with mean
+       gap calmGap and bursts with mean gap burstGap, each lasting an
+       exponentially distributed time with the given mean
+    */
+    public static ArrivalProcess mmpp(double calmGap, double burstGap, double meanCalm, double meanBurst) {
+        positive("calm gap", calmGap);
+        positive("burst gap", burstGap);
+        positive("calm length", meanCalm);
+        positive("burst length", meanBurst);
+        return new ArrivalProcess() {
+            private boolean bursting;
+            private double stateLeft = Double.NaN;   // time until the state flips
+
+            @Override
+            public double nextGap(SplittableRandom random) {
+                if (Double.isNaN(stateLeft))
+                    stateLeft = exponentialSample(random, meanCalm);
+                double gap = 0;
+                while (true) {
+                    // memoryless: a gap cut short by a state change is simply redrawn in the new state
+                    double candidate = exponentialSample(random, bursting ? burstGap : calmGap);
+                    if (candidate <= stateLeft) {
+                        stateLeft -= candidate;
+                        return gap + candidate;
+                    }
+                    gap += stateLeft;
+                    bursting = !bursting;
+                    stateLeft = exponentialSample(random, bursting ? meanBurst : meanCalm);
+                }
+            }
+        };
+    }
+
+    // int distributions; bursts are at least 1 wherever they come from
+
+    public static IntDistribution exponential(double mean) {
+        positive("mean", mean);
+        return random -> toBurst(exponentialSample(random, mean));
+    }
+
+    // heavy tail: scale * U^(-1/shape), mean scale * shape / (shape - 1) for shape > 1
+    public static IntDistribution pareto(double scale, double shape) {
+        positive("scale", scale);
+        positive("shape", shape);
+        return random -> toBurst(scale * Math.pow(1 - random.nextDouble(), -1 / shape));
+    }
+
+    // exp(mu + sigma * N(0, 1))
+    public static IntDistribution lognormal(double mu, double sigma) {
+        if (sigma < 0)
+            throw new IllegalArgumentException("negative sigma " + sigma);
+        return random -> toBurst(Math.exp(mu + sigma * gaussian(random)));
+    }
+
+    // min..max inclusive, every value equally likely
+    public static IntDistribution uniform(int min, int max) {
+        if (max < min)
+            throw new IllegalArgumentException("empty range " + min + ".." + max);
+        long span = (long) max - min + 1;
+        if (span <= Integer.MAX_VALUE)
+            return random -> min + random.nextInt((int) span);
+        return random -> (int) (min + random.nextLong(span));
+    }
+
+    // value i with probability weights[i] / sum of weights
+    public static IntDistribution weighted(double... weights) {
+        double[] cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0)
+                throw new IllegalArgumentException("negative weight " + weights[i]);
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        if (total <= 0)
+            throw new IllegalArgumentException("weights add up to " + total);
+        double sum = total;
+        return random -> {
+            double x = random.nextDouble(sum);
+            int i = Arrays.binarySearch(cumulative, x);
+            i = i >= 0 ? i + 1 : -i - 1;
+            while (cumulative[i] <= x)   // past zero weights
+                i++;
+            return i;
+        };
+    }
+
+    private static double exponentialSample(SplittableRandom random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+
+    // Box-Muller; one of the pair is thrown away to keep the distributions stateless
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private static int toBurst(double value) {
+        return value >= Integer.MAX_VALUE ? Integer.MAX_VALUE : Math.max(1, (int) Math.round(value));
+    }
+
+    private static void positive(String what, double value) {
+        if (!(value > 0))
+            throw new IllegalArgumentException(what + " must be positive: " + value);
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+   reads the input.txt workload format
+
+      <count>
+      <name> <arrival> <burst> <priority> <type>
+      ...
+
+   The file is memory mapped window by window and tokenised byte by byte, and
+   every process goes straight to the consumer, so even a 50M line trace never
+   exists as one big list. Like the Scanner it replaces, any whitespace
+   separates tokens and anything after the first <count> processes is ignored.
+   Files in the binary format (see BinaryWorkload) are recognised by their
+   magic and read by BinaryWorkload instead.
+*/
+public class WorkloadParser {
+    private static final long WINDOW = 256L << 20;   // bytes mapped at a time
+    private static final int CHUNK = 1 << 16;        // bytes copied out of the mapping at a time
+    private static final int FIELDS = 5;
+
+    private final WorkloadConsumer consumer;
+    private final boolean keepNames;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private int tokenIndex;     // 0 is the count, then FIELDS per process
+    private long line = 1;
+    private long expected = -1;
+    private int parsed;
+
+    // current record
+    private String name;
+    private int arrival;
+    private int burst;
+    private int priority;
+
+    private WorkloadParser(WorkloadConsumer consumer, boolean keepNames) {
+        this.consumer = consumer;
+        this.keepNames = keepNames;
+    }
+
+    // returns the number of processes passed to consumer; ids are 1..count in file order
+    public static int parse(Path file, WorkloadConsumer consumer) throws IOException {
+        return parse(file, consumer, true);
+    }
+
+    // keepNames = false hands null names to the consumer and saves a String per process
+    public static int parse(Path file, WorkloadConsumer consumer, boolean keepNames) throws IOException {
+        if (BinaryWorkload.isBinary(file))
+            return BinaryWorkload.read(file, consumer, keepNames);
+        WorkloadParser parser = new WorkloadParser(consumer, keepNames);
+        parser.read(file);
+        return parser.parsed;
+    }
+
+    public static ProcessTable load(Path file) throws IOException {
+        if (BinaryWorkload.isBinary(file))
+            return BinaryWorkload.load(file);
+        ProcessTable table = new ProcessTable();
+        parse(file, table::add);
+        return table;
+    }
+
+    private void read(Path file) throws IOException {
+        byte[] chunk = new byte[CHUNK];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size && !done(); position += WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+                while (window.hasRemaining() && !done()) {
+                    int length = Math.min(chunk.length, window.remaining());
+                    window.get(chunk, 0, length);
+                    scan(chunk, length);
+                }
+            }
+        }
+        if (tokenLength > 0)
+            endToken();
+        if (expected == -1)
+            throw new IllegalArgumentException(file + ": missing process count");
+        if (parsed < expected)
+            throw new IllegalArgumentException(file + ": expected " + expected + " processes but found " + parsed);
+    }
+
+    private boolean done() {
+        return expected != -1 && parsed >= expected;
+    }
+
+    private void scan(byte[] chunk, int length) {
+        for (int i = 0; i < length && !done(); i++) {
+            byte b = chunk[i];
+            if (b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B) {
+                if (tokenLength > 0)
+                    endToken();
+                if (b == '\n')
+                    line++;
+            } else {
+                if (tokenLength == token.length)
+                    token = Arrays.copyOf(token, token.length * 2);
+                token[tokenLength++] = b;
+            }
+        }
+    }
+
+    private void endToken() {
+        if (tokenIndex == 0) {
+            expected = parseInt();
+            if (expected < 0)
+                throw error("negative process count");
+        } else {
+            switch ((tokenIndex - 1) % FIELDS) {
+                case 0 -> name = keepNames ? new String(token, 0, tokenLength, StandardCharsets.UTF_8) : null;
+                case 1 -> arrival = parseInt();
+                case 2 -> burst = parseInt();
+                case 3 -> priority = parseInt();
+                default -> {
+                    ProcessType type;
+                    try {
+                        type = ProcessType.from(token, 0, tokenLength);
+                    } catch (IllegalArgumentException e) {
+                        throw error(e.getMessage());
+                    }
+                    parsed++;
+                    consumer.accept(name, parsed, arrival, burst, priority, type);
+                }
+            }
+        }
+        tokenIndex++;
+        tokenLength = 0;
+    }
+
+    private int parseInt() {
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        if (i == tokenLength)
+            throw error("expected a number");
+        long value = 0;
+        for (; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw error("expected a number but got " + new String(token, 0, tokenLength, StandardCharsets.UTF_8));
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L)
+                throw error("number out of range");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE)
+            throw error("number out of range");
+        return (int) value;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("line " + line + ": " + message);
+    }
+}